@@ -224,12 +224,14 @@ public class SamplingAgent {
 		copyProperty(USE_OBJECT_NAME_PROPERTIES, DEFAULTS, LISTENER_PROPERTIES, true);
 		copyProperty(EXCLUDE_ON_ERROR, DEFAULTS, LISTENER_PROPERTIES, false);
 		copyProperty(USER_EXCLUDED_ATTRIBUTES, DEFAULTS, LISTENER_PROPERTIES, "");
+		copyProperty(COUNTER_ATTRIBUTES, DEFAULTS, LISTENER_PROPERTIES, "");
 
 		copyProperty(FORCE_OBJECT_NAME, System.getProperties(), LISTENER_PROPERTIES);
 		copyProperty(COMPOSITE_DELIMITER, System.getProperties(), LISTENER_PROPERTIES);
 		copyProperty(USE_OBJECT_NAME_PROPERTIES, System.getProperties(), LISTENER_PROPERTIES);
 		copyProperty(EXCLUDE_ON_ERROR, System.getProperties(), LISTENER_PROPERTIES);
 		copyProperty(USER_EXCLUDED_ATTRIBUTES, System.getProperties(), LISTENER_PROPERTIES);
+		copyProperty(COUNTER_ATTRIBUTES, System.getProperties(), LISTENER_PROPERTIES);
 	}
 
 	/**
@@ -309,6 +311,11 @@ public class SamplingAgent {
 					if (prop.length > 1) {
 						LISTENER_PROPERTIES.put(USER_EXCLUDED_ATTRIBUTES.pName(), prop[1]);
 					}
+				} else if (arg.startsWith(COUNTER_ATTRIBUTES.pName() + StreamJMXConstants.KV_DELIM)) {
+					String[] prop = arg.split(StreamJMXConstants.KV_DELIM, 2);
+					if (prop.length > 1) {
+						LISTENER_PROPERTIES.put(COUNTER_ATTRIBUTES.pName(), prop[1]);
+					}
 				} else {
 					agentParams += agentParams.isEmpty() ? arg : "!" + arg;
 				}
@@ -411,23 +418,16 @@ public class SamplingAgent {
 				sampleLocalVM(agentOptions, true);
 			} else {
 				try {
-					String inclF = clProps.getProperty(AGENT_ARG_I_FILTER, Sampler.JMX_FILTER_ALL);
-					String exclF = clProps.getProperty(AGENT_ARG_E_FILTER, Sampler.JMX_FILTER_NONE);
-					long sample_time = Integer
+					SamplingArgs sa = new SamplingArgs();
+					sa.incFilter = clProps.getProperty(AGENT_ARG_I_FILTER, Sampler.JMX_FILTER_ALL);
+					sa.excFilter = clProps.getProperty(AGENT_ARG_E_FILTER, Sampler.JMX_FILTER_NONE);
+					sa.period = Integer
 							.parseInt(clProps.getProperty(AGENT_ARG_S_TIME, String.valueOf(Sampler.JMX_SAMPLE_PERIOD)));
-					long delay_time = Integer
-							.parseInt(clProps.getProperty(AGENT_ARG_D_TIME, String.valueOf(sample_time)));
+					sa.initDelay = Integer.parseInt(clProps.getProperty(AGENT_ARG_D_TIME, String.valueOf(sa.period)));
+					sa.batchSize = Integer.parseInt(clProps.getProperty(AGENT_ARG_BATCH_SIZE, "-1"));
 					long wait_time = Integer.parseInt(clProps.getProperty(AGENT_ARG_W_TIME, "0"));
-					int batch_size = Integer.parseInt(clProps.getProperty(AGENT_ARG_BATCH_SIZE, "-1"));
 					SamplingAgent samplingAgent = newSamplingAgent();
-					Map<String, Object> samplerCfg = new HashMap<>(6);
-					samplerCfg.put(SampleHandler.CFG_INCLUDE_FILTER, inclF);
-					samplerCfg.put(SampleHandler.CFG_EXCLUDE_FILTER, exclF);
-					samplerCfg.put(SampleHandler.CFG_BATCH_SIZE, batch_size);
-
-					samplerCfg.put(Sampler.CFG_INITIAL_DELAY, delay_time);
-					samplerCfg.put(Sampler.CFG_SAMPLING_PERIOD, sample_time);
-					samplerCfg.put(Sampler.CFG_TIME_UNIT, TimeUnit.MILLISECONDS);
+					Map<String, Object> samplerCfg = sa.getAsMap();
 					samplingAgent.initPlatformJMX(samplerCfg, null);
 					LOGGER.log(OpLevel.INFO,
 							"SamplingAgent.main: sampler.config={0}, wait.ms={1}, listener.properties={2}, tnt4j.config={3}, jmx.sample.list={4}",
@@ -460,6 +460,7 @@ public class SamplingAgent {
 					+ "       sample-ms - MBeans sampling rate in milliseconds\n"
 					+ "       init-delay-ms - MBeans sampling initial delay in milliseconds. Optional, by default it is equal to 'sample-ms' value.\n"
 					+ "       batch-size - number of sampled MBeans to post over single package. Optional, default is `-1` (unlimited).\n"
+					+ "       filter-groups - '|' separated list of MBean filter groups, having own sampling periods: include-filter[#exclude-filter]@period-ms. Optional.\n"
 					+ "   -cp: - JMX connection parameter string using '=' symbol as delimiter. Defines only one parameter, to define more than one use this argument multiple times. Argument format: -cp:key=value\n"
 					+ "       see https://docs.oracle.com/en/java/javase/11/management/monitoring-and-management-using-jmx-technology.html for more details\n"
 					+ "  -slp: - sampler parameter string using '=' symbol as delimiter. Defines only one parameter, to define more than one use this argument multiple times. Argument format: -slp:key=value\n"
@@ -1273,6 +1274,73 @@ public class SamplingAgent {
 		 * Sampled activity snapshots count to post over single batch. {@code -1} means unlimited.
 		 */
 		int batchSize = Integer.getInteger("com.jkoolcloud.tnt4j.stream.jmx.batch.size", -1);
+		/**
+		 * Target estimated payload size in bytes of sampled activity snapshots to post over single batch. {@code 0}
+		 * means payload size is not limited.
+		 */
+		long batchBytes = Long.getLong("com.jkoolcloud.tnt4j.stream.jmx.batch.bytes", 0);
+		/**
+		 * Flag indicating whether to tune batch payload size by observed posting throughput.
+		 */
+		boolean batchAutoTune = Boolean.getBoolean("com.jkoolcloud.tnt4j.stream.jmx.batch.autotune");
+		/**
+		 * Capacity of sampled activities posting queue. {@code 0} means activities are posted synchronously by
+		 * sampling thread.
+		 */
+		int postQueueSize = Integer.getInteger("com.jkoolcloud.tnt4j.stream.jmx.post.queue.size", 0);
+		/**
+		 * Sampled activities posting queue overflow policy: {@code block}, {@code drop-oldest}, {@code drop-newest} or
+		 * {@code spill}.
+		 */
+		String postQueuePolicy = System.getProperty("com.jkoolcloud.tnt4j.stream.jmx.post.queue.policy");
+		/**
+		 * Number of threads used to sample MBeans of single JMX connection. Values {@code 0} and {@code 1} means
+		 * sequential sampling within scheduler thread.
+		 */
+		int samplingThreads = Integer.getInteger("com.jkoolcloud.tnt4j.stream.jmx.sampling.threads", 0);
+		/**
+		 * Single MBean sampling timeout in milliseconds. {@code 0} means no timeout.
+		 */
+		int mbeanTimeout = Integer.getInteger("com.jkoolcloud.tnt4j.stream.jmx.sampling.mbean.timeout", 0);
+		/**
+		 * Whole sampling cycle timeout in milliseconds. {@code 0} means no timeout.
+		 */
+		int cycleTimeout = Integer.getInteger("com.jkoolcloud.tnt4j.stream.jmx.sampling.cycle.timeout", 0);
+		/**
+		 * Number of sampling cycles to skip MBean after its sampling timed out. {@code 0} means no cool-down.
+		 */
+		int timeoutCoolDown = Integer.getInteger("com.jkoolcloud.tnt4j.stream.jmx.sampling.timeout.cooldown", 0);
+		/**
+		 * Maximum adaptive MBean sampling interval in sampling cycles. Values {@code 0} and {@code 1} means adaptive
+		 * sampling is disabled.
+		 */
+		int adaptiveMaxInterval = Integer.getInteger("com.jkoolcloud.tnt4j.stream.jmx.sampling.adaptive.max.interval",
+				0);
+		/**
+		 * MBean filter groups having own sampling periods definition string.
+		 *
+		 * @see com.jkoolcloud.tnt4j.stream.jmx.scheduler.FilterGroup
+		 */
+		String filterGroups = System.getProperty("com.jkoolcloud.tnt4j.stream.jmx.filter.groups");
+		/**
+		 * Number of sampling cycles between full MBean snapshots (keyframes), when only changed MBean properties are
+		 * emitted. {@code 0} means delta mode is disabled.
+		 */
+		int deltaKeyframeInterval = Integer
+				.getInteger("com.jkoolcloud.tnt4j.stream.jmx.sampling.delta.keyframe.interval", 0);
+		/**
+		 * Metrics rollup (inner) sampling period. MBeans are sampled at this period, while rolled up metrics are
+		 * emitted once per sampling period. {@code 0} means rollup mode is disabled.
+		 */
+		int rollupPeriod = Integer.getInteger("com.jkoolcloud.tnt4j.stream.jmx.sampling.rollup.period", 0);
+		/**
+		 * MBeans metadata cache file path. Empty value means MBeans metadata cache is disabled.
+		 */
+		String mbeanInfoCache = System.getProperty("com.jkoolcloud.tnt4j.stream.jmx.mbean.info.cache.file");
+		/**
+		 * Maximal number of MBean infos fetched from MBean server in parallel while loading MBeans.
+		 */
+		int mbeanInfoThreads = Integer.getInteger("com.jkoolcloud.tnt4j.stream.jmx.mbean.info.threads", 4);
 		/**
 		 * Time units for sampling period and initial delay values.
 		 */
@@ -1325,16 +1393,34 @@ public class SamplingAgent {
 					sa.batchSize = Integer.parseInt(args[nextIdx++]);
 				} catch (NumberFormatException | IndexOutOfBoundsException exc) {
 				}
+				try {
+					sa.filterGroups = args[nextIdx++];
+				} catch (IndexOutOfBoundsException exc) {
+				}
 			}
 
 			return sa;
 		}
 
 		private Map<String, Object> getAsMap() {
-			Map<String, Object> cfgMap = new HashMap<>(6);
+			Map<String, Object> cfgMap = new HashMap<>(32);
 			cfgMap.put(SampleHandler.CFG_INCLUDE_FILTER, incFilter);
 			cfgMap.put(SampleHandler.CFG_EXCLUDE_FILTER, excFilter);
 			cfgMap.put(SampleHandler.CFG_BATCH_SIZE, batchSize);
+			cfgMap.put(SampleHandler.CFG_BATCH_BYTES, batchBytes);
+			cfgMap.put(SampleHandler.CFG_BATCH_AUTO_TUNE, batchAutoTune);
+			cfgMap.put(SampleHandler.CFG_POST_QUEUE_SIZE, postQueueSize);
+			cfgMap.put(SampleHandler.CFG_POST_QUEUE_POLICY, postQueuePolicy);
+			cfgMap.put(SampleHandler.CFG_SAMPLING_THREADS, samplingThreads);
+			cfgMap.put(SampleHandler.CFG_MBEAN_TIMEOUT, mbeanTimeout);
+			cfgMap.put(SampleHandler.CFG_CYCLE_TIMEOUT, cycleTimeout);
+			cfgMap.put(SampleHandler.CFG_TIMEOUT_COOL_DOWN, timeoutCoolDown);
+			cfgMap.put(SampleHandler.CFG_ADAPTIVE_MAX_INTERVAL, adaptiveMaxInterval);
+			cfgMap.put(SampleHandler.CFG_FILTER_GROUPS, filterGroups);
+			cfgMap.put(SampleHandler.CFG_DELTA_KEYFRAME_INTERVAL, deltaKeyframeInterval);
+			cfgMap.put(SampleHandler.CFG_ROLLUP_PERIOD, rollupPeriod);
+			cfgMap.put(SampleHandler.CFG_MBEAN_INFO_CACHE, mbeanInfoCache);
+			cfgMap.put(SampleHandler.CFG_MBEAN_INFO_THREADS, mbeanInfoThreads);
 
 			cfgMap.put(Sampler.CFG_INITIAL_DELAY, initDelay);
 			cfgMap.put(Sampler.CFG_SAMPLING_PERIOD, period);
@@ -15,6 +15,8 @@
  */
 package com.jkoolcloud.tnt4j.stream.jmx.conditions;
 
+import javax.management.ObjectName;
+
 /**
  * <p>
  * This interface defines a way to evaluate user defined conditions for a given attribute sample.
@@ -40,4 +42,14 @@ public interface AttributeCondition {
 	 * @return true if condition evaluated, false otherwise
 	 */
 	boolean evaluate(AttributeSample sample);
+
+	/**
+	 * MBean object name (or object name pattern) this condition applies to. Used by sample handler to dispatch
+	 * condition evaluation only for samples of matching MBeans.
+	 * 
+	 * @return MBean object name or pattern this condition applies to, {@code null} if condition applies to any MBean
+	 */
+	default ObjectName getObjectName() {
+		return null;
+	}
 }
@@ -36,9 +36,11 @@ public class AttributeSample {
 	Activity activity;
 	JMXServerConnection server;
 	ObjectName name;
+	SamplingPlan plan;
 	Map<String, MBeanAttributeInfo> aInfoMap;
 	long timeStamp = 0;
 	AttributeList value;
+	Map<String, Object> valueIndex;
 	Throwable ex;
 	PropertySnapshot snapshot;
 
@@ -60,10 +62,28 @@ public class AttributeSample {
 	 */
 	protected AttributeSample(Activity activity, PropertySnapshot snapshot, JMXServerConnection serverConn,
 			ObjectName name, MBeanInfo mBeanInfo) {
+		this(activity, snapshot, serverConn, new SamplingPlan(name, mBeanInfo));
+	}
+
+	/**
+	 * Create an attribute sample using compiled MBean sampling plan.
+	 *
+	 * @param activity
+	 *            associated with current sample
+	 * @param snapshot
+	 *            to put MBean attribute values
+	 * @param serverConn
+	 *            MBean server connection instance
+	 * @param plan
+	 *            MBean sampling plan
+	 */
+	protected AttributeSample(Activity activity, PropertySnapshot snapshot, JMXServerConnection serverConn,
+			SamplingPlan plan) {
 		this.activity = activity;
 		this.server = serverConn;
-		this.name = name;
-		this.aInfoMap = asMap(mBeanInfo);
+		this.name = plan.getObjectName();
+		this.plan = plan;
+		this.aInfoMap = plan.getAttributesInfo();
 		this.snapshot = snapshot;
 	}
 
@@ -107,6 +127,24 @@ public class AttributeSample {
 		return new AttributeSample(activity, snapshot, serverConn, name, mBeanInfo);
 	}
 
+	/**
+	 * Creates an attribute sample instance using compiled MBean sampling plan.
+	 *
+	 * @param activity
+	 *            associated with current sample
+	 * @param snapshot
+	 *            to put MBean attribute values
+	 * @param serverConn
+	 *            MBean server connection instance
+	 * @param plan
+	 *            MBean sampling plan
+	 * @return a new attribute sample instance
+	 */
+	public static AttributeSample newAttributeSample(Activity activity, PropertySnapshot snapshot,
+			JMXServerConnection serverConn, SamplingPlan plan) {
+		return new AttributeSample(activity, snapshot, serverConn, plan);
+	}
+
 	/**
 	 * Sample and retrieve the value list associated with the MBean attributes.
 	 * 
@@ -116,20 +154,17 @@ public class AttributeSample {
 	 *             if any sampling error occurs
 	 */
 	public AttributeList sample() throws Exception {
+		valueIndex = null;
 		try {
-			Set<String> attrNames = new LinkedHashSet<>(aInfoMap.size());
-			for (String attrName : aInfoMap.keySet()) {
-				if (!excludeAttrs.contains(attrName)) {
-					attrNames.add(attrName);
-				}
-			}
-			value = server.getAttributes(name, attrNames.toArray(new String[0]));
-			if (attrNames.size() != value.size()) {
+			String[] attrNames = plan.getAttributeNames(excludeAttrs);
+			value = server.getAttributes(name, attrNames);
+			if (attrNames.length != value.size()) {
+				Set<String> missingAttrs = new LinkedHashSet<>(Arrays.asList(attrNames));
 				for (Attribute attr : value.asList()) {
-					attrNames.remove(attr.getName());
+					missingAttrs.remove(attr.getName());
 				}
 
-				for (String attrName : attrNames) {
+				for (String attrName : missingAttrs) {
 					value.add(new Attribute(attrName, "<unavailable>"));
 				}
 			}
@@ -140,6 +175,34 @@ public class AttributeSample {
 		return value;
 	}
 
+	/**
+	 * Creates copy of this sample to be sampled by other thread. Copy shares MBean sampling plan, but has own excluded
+	 * attributes set and own sampled values, so sampling of copy completing late does not alter this sample. Sampled
+	 * values of copy are transferred to this sample by {@link #set(AttributeSample)}.
+	 *
+	 * @return copy of this sample
+	 */
+	public AttributeSample copy() {
+		AttributeSample copy = new AttributeSample(activity, snapshot, server, plan);
+		copy.excludeAttrs.addAll(excludeAttrs);
+		return copy;
+	}
+
+	/**
+	 * Sets sampled attribute values, sampling timestamp and error of provided sample copy to this sample.
+	 *
+	 * @param sampled
+	 *            sampled copy of this sample
+	 *
+	 * @see #copy()
+	 */
+	public void set(AttributeSample sampled) {
+		value = sampled.value;
+		valueIndex = null;
+		timeStamp = sampled.timeStamp;
+		ex = sampled.ex;
+	}
+
 	private static String getValueFromException(Exception exc) throws Exception {
 		Throwable ct = exc;
 		if (exc instanceof RuntimeMBeanException) {
@@ -223,7 +286,8 @@ public class AttributeSample {
 	}
 
 	/**
-	 * Obtain MBean attribute handles map associated with this sample.
+	 * Obtain MBean attribute handles map associated with this sample. Attribute handles of sampled MBeans are compact
+	 * copies having no descriptors (see {@link MBeanInfoPool}).
 	 * 
 	 * @return MBean attribute handles map associated with this sample
 	 */
@@ -251,6 +315,15 @@ public class AttributeSample {
 		return ex;
 	}
 
+	/**
+	 * Obtain MBean sampling plan associated with this sample
+	 * 
+	 * @return MBean sampling plan associated with this sample
+	 */
+	public SamplingPlan getSamplingPlan() {
+		return plan;
+	}
+
 	/**
 	 * Obtain MBean object name associated with this sample
 	 * 
@@ -301,21 +374,43 @@ public class AttributeSample {
 	}
 
 	/**
-	 * Obtain last sampled attribute value.
+	 * Obtain last sampled attribute value. Attribute values index is built once per sample, on first call of this
+	 * method, so consequent lookups take constant time.
 	 * 
 	 * @param attrName
 	 *            attribute name
 	 * @return last sampled attribute value, or {@code null} if attribute is not found by provided name
 	 * 
 	 * @see #sample()
+	 * @see #getValues()
 	 */
 	public Object getValue(String attrName) {
-		for (Attribute attr : value.asList()) {
-			if (attr.getName().equals(attrName)) {
-				return attr.getValue();
+		return getValues().get(attrName);
+	}
+
+	/**
+	 * Obtain unmodifiable last sampled attribute values map, indexed by attribute name. Index is built lazily once per
+	 * sample.
+	 * 
+	 * @return last sampled attribute values map, or empty map if no sample was taken
+	 * 
+	 * @see #sample()
+	 */
+	public Map<String, Object> getValues() {
+		Map<String, Object> vIndex = valueIndex;
+		if (vIndex == null) {
+			AttributeList vList = value;
+			if (vList == null) {
+				return Collections.emptyMap();
+			}
+			vIndex = new HashMap<>((int) (vList.size() / 0.75f) + 1);
+			for (Attribute attr : vList.asList()) {
+				vIndex.putIfAbsent(attr.getName(), attr.getValue());
 			}
+			vIndex = Collections.unmodifiableMap(vIndex);
+			valueIndex = vIndex;
 		}
-		return null;
+		return vIndex;
 	}
 
 	/**
@@ -329,4 +424,16 @@ public class AttributeSample {
 	public long ageUsec() {
 		return timeStamp > 0 ? (Utils.currentTimeUsec() - timeStamp) : -1;
 	}
+
+	/**
+	 * Obtain timestamp in microseconds of last sampled value. {@link #sample()} must be called prior to calling this
+	 * call, otherwise 0 is returned.
+	 *
+	 * @return timestamp in microseconds of last sampled value, 0 if no sample was taken.
+	 *
+	 * @see #sample()
+	 */
+	public long getTimeStamp() {
+		return timeStamp;
+	}
 }
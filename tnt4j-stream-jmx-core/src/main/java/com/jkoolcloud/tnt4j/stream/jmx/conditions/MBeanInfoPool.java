@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.conditions;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+
+/**
+ * <p>
+ * This class defines process wide pool of compact MBean infos. Sampling uses only MBean class name and attributes
+ * metadata, so pooled MBean info retains only class name and attributes having name, type, description and access
+ * flags, while MBean and attribute descriptors, constructors, operations and notifications are dropped.
+ * </p>
+ * <p>
+ * Compact MBean infos are deduplicated by structural equality (see {@link MBeanInfo#equals(Object)}), so MBeans
+ * having same class and layout (e.g. thousands of per-partition Kafka {@code Log} MBeans on every broker) share single
+ * MBean info instance and single attributes map across all MBeans and all JMX connections. Pool entries are weakly
+ * referenced and are released once no sampled MBean refers them.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+public final class MBeanInfoPool {
+	private static final Map<MBeanInfo, Entry> POOL = new WeakHashMap<>(256);
+
+	private MBeanInfoPool() {
+	}
+
+	/**
+	 * Obtain pooled compact copy of provided MBean info.
+	 *
+	 * @param info
+	 *            MBean info
+	 * @return pooled compact MBean info
+	 */
+	public static MBeanInfo compact(MBeanInfo info) {
+		if (info == null) {
+			return null;
+		}
+		MBeanInfo cInfo = isCompact(info) ? info : strip(info);
+		try {
+			synchronized (POOL) {
+				Entry entry = POOL.get(cInfo);
+				MBeanInfo pInfo = entry == null ? null : entry.info.get();
+				if (pInfo != null) {
+					return pInfo;
+				}
+				POOL.put(cInfo, new Entry(cInfo));
+				return cInfo;
+			}
+		} catch (RuntimeException exc) { // NOTE: sometimes MBeanAttributeInfo.equals throws internal NPE
+			return cInfo;
+		}
+	}
+
+	/**
+	 * Obtain unmodifiable attributes map of provided MBean info, preserving MBean info defined attributes order. Pooled
+	 * MBean info attributes map is shared by all callers.
+	 *
+	 * @param info
+	 *            MBean info
+	 * @return MBean attribute handles map
+	 */
+	public static Map<String, MBeanAttributeInfo> getAttributes(MBeanInfo info) {
+		synchronized (POOL) {
+			Entry entry = POOL.get(info);
+			if (entry != null && entry.info.get() == info) {
+				return entry.attributes;
+			}
+		}
+		return Collections.unmodifiableMap(AttributeSample.asMap(info));
+	}
+
+	/**
+	 * Obtain number of pooled MBean infos.
+	 *
+	 * @return number of pooled MBean infos
+	 */
+	public static int size() {
+		synchronized (POOL) {
+			return POOL.size();
+		}
+	}
+
+	private static boolean isCompact(MBeanInfo info) {
+		if (info.getDescription() != null || info.getDescriptor().getFieldNames().length > 0
+				|| info.getConstructors().length > 0 || info.getOperations().length > 0
+				|| info.getNotifications().length > 0) {
+			return false;
+		}
+		for (MBeanAttributeInfo aInfo : info.getAttributes()) {
+			if (aInfo.getDescriptor().getFieldNames().length > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static MBeanInfo strip(MBeanInfo info) {
+		MBeanAttributeInfo[] attrs = info.getAttributes();
+		for (int i = 0; i < attrs.length; i++) {
+			MBeanAttributeInfo aInfo = attrs[i];
+			attrs[i] = new MBeanAttributeInfo(aInfo.getName(), aInfo.getType(), aInfo.getDescription(),
+					aInfo.isReadable(), aInfo.isWritable(), aInfo.isIs());
+		}
+		return new MBeanInfo(info.getClassName(), null, attrs, null, null, null);
+	}
+
+	private static class Entry {
+		private final WeakReference<MBeanInfo> info;
+		private final Map<String, MBeanAttributeInfo> attributes;
+
+		private Entry(MBeanInfo info) {
+			this.info = new WeakReference<>(info);
+			this.attributes = Collections.unmodifiableMap(AttributeSample.asMap(info));
+		}
+	}
+}
@@ -36,7 +36,21 @@ public interface SampleHandler extends ActivityListener, NestedHandler<SampleHan
 	public static final String CFG_EXCLUDE_FILTER = "SH_CFG_EXCLUDE_FILTER";
 	public static final String CFG_SOURCE = "SH_CFG_SOURCE";
 	public static final String CFG_BATCH_SIZE = "SH_CFG_BATCH_SIZE";
+	public static final String CFG_BATCH_BYTES = "SH_CFG_BATCH_BYTES";
+	public static final String CFG_BATCH_AUTO_TUNE = "SH_CFG_BATCH_AUTO_TUNE";
+	public static final String CFG_POST_QUEUE_SIZE = "SH_CFG_POST_QUEUE_SIZE";
+	public static final String CFG_POST_QUEUE_POLICY = "SH_CFG_POST_QUEUE_POLICY";
 	public static final String CFG_JMX_CONNECTOR = "SH_CFG_JMX_CONNECTOR";
+	public static final String CFG_SAMPLING_THREADS = "SH_CFG_SAMPLING_THREADS";
+	public static final String CFG_MBEAN_TIMEOUT = "SH_CFG_MBEAN_TIMEOUT";
+	public static final String CFG_CYCLE_TIMEOUT = "SH_CFG_CYCLE_TIMEOUT";
+	public static final String CFG_TIMEOUT_COOL_DOWN = "SH_CFG_TIMEOUT_COOL_DOWN";
+	public static final String CFG_ADAPTIVE_MAX_INTERVAL = "SH_CFG_ADAPTIVE_MAX_INTERVAL";
+	public static final String CFG_FILTER_GROUPS = "SH_CFG_FILTER_GROUPS";
+	public static final String CFG_DELTA_KEYFRAME_INTERVAL = "SH_CFG_DELTA_KEYFRAME_INTERVAL";
+	public static final String CFG_ROLLUP_PERIOD = "SH_CFG_ROLLUP_PERIOD";
+	public static final String CFG_MBEAN_INFO_CACHE = "SH_CFG_MBEAN_INFO_CACHE";
+	public static final String CFG_MBEAN_INFO_THREADS = "SH_CFG_MBEAN_INFO_THREADS";
 
 	/**
 	 * Register and associate condition with an action
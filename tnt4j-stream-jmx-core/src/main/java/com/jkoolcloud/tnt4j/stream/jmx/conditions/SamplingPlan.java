@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.conditions;
+
+import java.util.*;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * This class defines compiled MBean sampling plan: MBean attribute handles index and attribute names array to request
+ * from MBean server for a particular set of excluded attributes. Plan is built once per MBean registration and reused
+ * for every sample of that MBean, so sampling does not rebuild attribute collections on every sampling cycle. Plans
+ * built from pooled MBean info share single attribute handles map (see {@link MBeanInfoPool}).
+ * </p>
+ * 
+ * @see AttributeSample
+ * @version $Revision: 1 $
+ */
+public class SamplingPlan {
+	private final ObjectName name;
+	private final MBeanInfo mBeanInfo;
+	private final Map<String, MBeanAttributeInfo> aInfoMap;
+
+	private volatile CompiledNames compiledNames;
+
+	/**
+	 * Create a sampling plan for provided MBean.
+	 *
+	 * @param name
+	 *            MBean object name reference
+	 * @param mBeanInfo
+	 *            MBean info
+	 */
+	public SamplingPlan(ObjectName name, MBeanInfo mBeanInfo) {
+		this.name = name;
+		this.mBeanInfo = mBeanInfo;
+		this.aInfoMap = MBeanInfoPool.getAttributes(mBeanInfo);
+	}
+
+	/**
+	 * Obtain MBean object name this plan is built for.
+	 *
+	 * @return MBean object name
+	 */
+	public ObjectName getObjectName() {
+		return name;
+	}
+
+	/**
+	 * Obtain MBean info this plan is built from.
+	 *
+	 * @return MBean info
+	 */
+	public MBeanInfo getMBeanInfo() {
+		return mBeanInfo;
+	}
+
+	/**
+	 * Obtain unmodifiable MBean attribute handles map, preserving MBean info defined attributes order.
+	 *
+	 * @return MBean attribute handles map
+	 */
+	public Map<String, MBeanAttributeInfo> getAttributesInfo() {
+		return aInfoMap;
+	}
+
+	/**
+	 * Checks whether this plan is built from provided MBean info instance.
+	 *
+	 * @param info
+	 *            MBean info
+	 * @return {@code true} if plan is built from provided MBean info, {@code false} - otherwise
+	 */
+	public boolean isPlanOf(MBeanInfo info) {
+		return mBeanInfo == info;
+	}
+
+	/**
+	 * Obtain names array of MBean attributes to sample, when provided set of attributes is excluded. Names array is
+	 * compiled once and reused while set of excluded attributes does not change. Returned array must not be modified.
+	 *
+	 * @param excludeAttrs
+	 *            set of excluded attribute names
+	 * @return names array of attributes to sample
+	 */
+	public String[] getAttributeNames(Set<String> excludeAttrs) {
+		CompiledNames cNames = compiledNames;
+		if (cNames == null || !cNames.excludes.equals(excludeAttrs)) {
+			cNames = compile(excludeAttrs);
+			compiledNames = cNames;
+		}
+
+		return cNames.names;
+	}
+
+	private CompiledNames compile(Set<String> excludeAttrs) {
+		List<String> attrNames = new ArrayList<>(aInfoMap.size());
+		for (String attrName : aInfoMap.keySet()) {
+			if (!excludeAttrs.contains(attrName)) {
+				attrNames.add(attrName);
+			}
+		}
+
+		return new CompiledNames(new HashSet<>(excludeAttrs), attrNames.toArray(new String[0]));
+	}
+
+	private static class CompiledNames {
+		private final Set<String> excludes;
+		private final String[] names;
+
+		private CompiledNames(Set<String> excludes, String[] names) {
+			this.excludes = excludes;
+			this.names = names;
+		}
+	}
+}
@@ -15,6 +15,9 @@
  */
 package com.jkoolcloud.tnt4j.stream.jmx.conditions;
 
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
 /**
  * <p>
  * This class defines a simple numeric condition that supports =, !=, &gt;, &gt;=, &lt;, &lt;= operators for a given JMX
@@ -29,6 +32,7 @@ package com.jkoolcloud.tnt4j.stream.jmx.conditions;
 public class SimpleCondition implements AttributeCondition {
 	String name;
 	String objName;
+	ObjectName oName;
 	String attrName;
 	Number value;
 	String op;
@@ -51,6 +55,15 @@ public class SimpleCondition implements AttributeCondition {
 		this.value = value;
 		this.op = op;
 		this.name = attrName + "@" + objName;
+		this.oName = toObjectName(objName);
+	}
+
+	private static ObjectName toObjectName(String objName) {
+		try {
+			return objName == null ? null : new ObjectName(objName);
+		} catch (MalformedObjectNameException exc) {
+			return null;
+		}
 	}
 
 	@Override
@@ -63,6 +76,11 @@ public class SimpleCondition implements AttributeCondition {
 		return name;
 	}
 
+	@Override
+	public ObjectName getObjectName() {
+		return oName;
+	}
+
 	@Override
 	public boolean evaluate(AttributeSample sample) {
 		Object sValue = sample.getValue(attrName);
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.core;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.jkoolcloud.tnt4j.core.OpLevel;
+import com.jkoolcloud.tnt4j.core.Property;
+import com.jkoolcloud.tnt4j.core.PropertySnapshot;
+import com.jkoolcloud.tnt4j.sink.EventSink;
+import com.jkoolcloud.tnt4j.stream.jmx.StreamJMXConstants;
+import com.jkoolcloud.tnt4j.stream.jmx.utils.LoggerUtils;
+
+/**
+ * <p>
+ * This class defines counter attributes derivation stage. For every sampled MBean snapshot property matching
+ * configured counter rule, it adds snapshot properties having counter value change since previous MBean sample (suffixed
+ * {@value #DELTA_SUFFIX}) and counter change per second rate (suffixed {@value #RATE_SUFFIX}). First MBean sample
+ * produces no derived values.
+ * </p>
+ * <p>
+ * Counter rules definition string format is
+ * {@code "path1,path2,...,pathN@MBean1_ObjectName;...;path1,path2,...,pathN@MBeanN_ObjectName"}, where path is
+ * snapshot property name (attribute name, or composite attribute path built using listener composite delimiter) and
+ * may have wildcards {@code '*'} and {@code '?'}. Missing MBean object name means any MBean.
+ * </p>
+ * <p>
+ * Counter value lower than previous one is treated as counter reset (e.g. monitored application restart), so delta is
+ * counted from {@code 0}. Integral counters are derived using {@code long} arithmetic and have {@link Long} deltas,
+ * floating point counters - {@link Double} deltas. Rates are always {@link Double}. MBean counters state is dropped
+ * when MBean gets unregistered, while JMX connection reconnect creates new sample listener having no counters state.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+final class CounterRates {
+	private static final EventSink LOGGER = LoggerUtils.getLoggerSink(CounterRates.class);
+
+	/**
+	 * Derived counter delta property name suffix.
+	 */
+	static final String DELTA_SUFFIX = "_delta";
+	/**
+	 * Derived counter per second rate property name suffix.
+	 */
+	static final String RATE_SUFFIX = "_rate";
+
+	private static final String MBEAN_DELIM = "@";
+	private static final String PATHS_DELIM = ",";
+	private static final Pattern[] NO_PATTERNS = new Pattern[0];
+
+	private final Map<ObjectName, Pattern> rules = new LinkedHashMap<>(5);
+	private final Map<ObjectName, MetricColumns> series = new ConcurrentHashMap<>(89);
+
+	/**
+	 * Create counter rates derivation stage.
+	 *
+	 * @param rulesDef
+	 *            counter rules definition string
+	 */
+	CounterRates(String rulesDef) {
+		parseRules(rulesDef);
+	}
+
+	private void parseRules(String rulesDef) {
+		if (StringUtils.isEmpty(rulesDef)) {
+			return;
+		}
+
+		Map<ObjectName, StringBuilder> regexes = new LinkedHashMap<>(5);
+		StringTokenizer rtk = new StringTokenizer(rulesDef, StreamJMXConstants.MULTI_VALUE_DELIM);
+		while (rtk.hasMoreTokens()) {
+			String ruleDef = rtk.nextToken().trim();
+			if (ruleDef.isEmpty()) {
+				continue;
+			}
+
+			int mIdx = ruleDef.lastIndexOf(MBEAN_DELIM);
+			String paths = (mIdx >= 0 ? ruleDef.substring(0, mIdx) : ruleDef).trim();
+			String mBean = mIdx >= 0 ? ruleDef.substring(mIdx + 1).trim() : "";
+			if (paths.isEmpty()) {
+				continue;
+			}
+
+			try {
+				ObjectName mBeanName = mBean.isEmpty() ? ObjectName.WILDCARD : new ObjectName(mBean);
+				StringBuilder regex = regexes.computeIfAbsent(mBeanName, k -> new StringBuilder());
+				for (String path : paths.split(PATHS_DELIM)) {
+					path = path.trim();
+					if (!path.isEmpty()) {
+						regex.append(regex.length() == 0 ? "" : "|").append(pathToRegex(path));
+					}
+				}
+			} catch (MalformedObjectNameException exc) {
+				LOGGER.log(OpLevel.WARNING,
+						"Init: Failed to construct ObjectName from counter rule definition: rule={0}, objName={1}",
+						ruleDef, mBean);
+			}
+		}
+
+		for (Map.Entry<ObjectName, StringBuilder> re : regexes.entrySet()) {
+			if (re.getValue().length() > 0) {
+				rules.put(re.getKey(), Pattern.compile(re.getValue().toString()));
+			}
+		}
+		LOGGER.log(OpLevel.DEBUG, "Init: Counter rates rules map: {0}", rules);
+	}
+
+	private static String pathToRegex(String path) {
+		StringBuilder sb = new StringBuilder(path.length() + 10);
+		int start = 0;
+		for (int i = 0; i < path.length(); i++) {
+			char c = path.charAt(i);
+			if (c == '*' || c == '?') {
+				if (i > start) {
+					sb.append(Pattern.quote(path.substring(start, i)));
+				}
+				sb.append(c == '*' ? ".*" : ".");
+				start = i + 1;
+			}
+		}
+		if (start < path.length()) {
+			sb.append(Pattern.quote(path.substring(start)));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Checks whether there are no counter rules defined.
+	 *
+	 * @return {@code true} if no counter rules defined, {@code false} - otherwise
+	 */
+	boolean isEmpty() {
+		return rules.isEmpty();
+	}
+
+	/**
+	 * Obtain number of MBean object name bound counter rules.
+	 *
+	 * @return number of counter rules
+	 */
+	int getRulesCount() {
+		return rules.size();
+	}
+
+	/**
+	 * Obtain number of tracked counter series.
+	 *
+	 * @return number of tracked counter series
+	 */
+	int getSeriesCount() {
+		int count = 0;
+		for (MetricColumns s : series.values()) {
+			count += s.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Derives counter deltas and rates for provided MBean snapshot and adds them to the same snapshot.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @param snapshot
+	 *            MBean sampled snapshot
+	 * @param timeStamp
+	 *            MBean sample timestamp in microseconds
+	 */
+	void derive(ObjectName name, PropertySnapshot snapshot, long timeStamp) {
+		Pattern[] patterns = getPatterns(name);
+		if (patterns.length == 0) {
+			return;
+		}
+
+		List<Property> counters = null;
+		for (Property prop : snapshot.getProperties()) {
+			if (prop.getValue() instanceof Number && !prop.isTransient() && matches(patterns, prop.getKey())) {
+				if (counters == null) {
+					counters = new ArrayList<>();
+				}
+				counters.add(prop);
+			}
+		}
+		if (counters == null) {
+			return;
+		}
+
+		int capacity = counters.size();
+		MetricColumns s = series.computeIfAbsent(name, k -> new MetricColumns(capacity));
+		synchronized (s) {
+			for (Property counter : counters) {
+				String key = counter.getKey();
+				int id = s.add(key);
+				boolean hasLast = s.hasValue(id);
+				long elapsed = timeStamp - s.getStamp(id);
+				if (MetricColumns.isIntegral(counter.getValue())) {
+					long value = ((Number) counter.getValue()).longValue();
+					long last = s.getLong(id);
+					s.setLong(id, value, timeStamp);
+					if (hasLast && elapsed > 0) {
+						long delta = value >= last ? value - last : value;
+						snapshot.add(key + DELTA_SUFFIX, delta);
+						snapshot.add(key + RATE_SUFFIX, delta * 1000000.0 / elapsed);
+					}
+				} else {
+					double value = ((Number) counter.getValue()).doubleValue();
+					double last = s.getDouble(id);
+					s.setDouble(id, value, timeStamp);
+					if (hasLast && elapsed > 0) {
+						double delta = value >= last ? value - last : value;
+						snapshot.add(key + DELTA_SUFFIX, delta);
+						snapshot.add(key + RATE_SUFFIX, delta * 1000000.0 / elapsed);
+					}
+				}
+			}
+		}
+	}
+
+	private Pattern[] getPatterns(ObjectName name) {
+		List<Pattern> patterns = null;
+		for (Map.Entry<ObjectName, Pattern> re : rules.entrySet()) {
+			if (re.getKey().apply(name)) {
+				if (patterns == null) {
+					patterns = new ArrayList<>(2);
+				}
+				patterns.add(re.getValue());
+			}
+		}
+		return patterns == null ? NO_PATTERNS : patterns.toArray(NO_PATTERNS);
+	}
+
+	private static boolean matches(Pattern[] patterns, String key) {
+		for (Pattern pattern : patterns) {
+			if (pattern.matcher(key).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes provided MBean counters state.
+	 *
+	 * @param name
+	 *            MBean object name
+	 */
+	void remove(ObjectName name) {
+		series.remove(name);
+	}
+}
@@ -16,6 +16,8 @@
 package com.jkoolcloud.tnt4j.stream.jmx.core;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -54,16 +56,22 @@ public class DefaultSampleListener implements SampleListener {
 	public static final String STAT_EXCLUDE_ON_ERROR_MODE = "listener.excludeOnError.mode";
 	public static final String STAT_EXCLUDE_SET_COUNT = "listener.exclude.set.count";
 	public static final String STAT_USER_EXCLUDED_ATTRS_COUNT = "listener.user.excluded.attrs.count";
+	public static final String STAT_COUNTER_RULES_COUNT = "listener.counter.rules.count";
+	public static final String STAT_COUNTER_SERIES_COUNT = "listener.counter.series.count";
 
 	boolean forceObjectName = false;
 	String compositeDelimiter = null;
 	boolean useObjectNameProperties = true;
 	boolean excludeOnError = false;
 
-	Collection<MBeanAttributeInfo> excAttrs = new HashSet<>(89);
+	Collection<MBeanAttributeInfo> excAttrs = ConcurrentHashMap.newKeySet(89);
 	Map<ObjectName, Pattern> userExcAttrs = new HashMap<>(5);
+	CounterRates counterRates;
 
-	private PropertyNameBuilder pnb;
+	private final Map<ObjectName, ExcludesEntry> excludesCache = new ConcurrentHashMap<>(89);
+	private final AtomicLong excVersion = new AtomicLong();
+
+	private final ThreadLocal<PropertyNameBuilder> pnb = new ThreadLocal<>();
 	protected final ReentrantLock buildLock = new ReentrantLock();
 
 	/**
@@ -85,6 +93,9 @@ public class DefaultSampleListener implements SampleListener {
 
 		String attrExcludes = Utils.getString(ListenerProperties.USER_EXCLUDED_ATTRIBUTES.pName(), properties, "");
 		fillUserExcludedAttributes(attrExcludes);
+
+		String counters = Utils.getString(ListenerProperties.COUNTER_ATTRIBUTES.pName(), properties, "");
+		counterRates = new CounterRates(counters);
 	}
 
 	/**
@@ -141,6 +152,7 @@ public class DefaultSampleListener implements SampleListener {
 			}
 		}
 
+		excVersion.incrementAndGet();
 		LOGGER.log(OpLevel.DEBUG, "Init: User MBean attribute exclusions map: {0}", userExcAttrs);
 	}
 
@@ -164,13 +176,16 @@ public class DefaultSampleListener implements SampleListener {
 	 *            MBean attribute info
 	 */
 	protected void exclude(MBeanAttributeInfo attr) {
-		addToCollection(excAttrs, attr);
+		if (addToCollection(excAttrs, attr)) {
+			excVersion.incrementAndGet();
+		}
 	}
 
-	private static void addToCollection(Collection<MBeanAttributeInfo> coll, MBeanAttributeInfo attr) {
+	private static boolean addToCollection(Collection<MBeanAttributeInfo> coll, MBeanAttributeInfo attr) {
 		try { // NOTE: sometimes MBeanAttributeInfo.equals throws internal NPE
-			coll.add(attr);
+			return coll.add(attr);
 		} catch (NullPointerException exc) {
+			return false;
 		}
 	}
 
@@ -218,11 +233,12 @@ public class DefaultSampleListener implements SampleListener {
 	@Override
 	public void pre(SampleContext context, Activity activity) {
 		LOGGER.log(OpLevel.DEBUG, "Pre: {}:" //
-				+ " sample.count={}, mbean.count={}, sample.mbeans.count={}" //
+				+ " sample.count={}, mbean.count={}, sample.mbeans.count={}, discovery.progress.pct={}" //
 				+ ", exclude.user.attr.set={}, exclude.attr.set={}, total.noop.count={}" //
 				+ ", total.exclude.count={}, total.error.count={}, tracking.id={}" //
 				+ ", mbean.server={}", //
 				activity.getName(), context.getSampleCount(), getMBeanCount(context), context.getMBeanCount(), //
+				context.getDiscoveryProgress(), //
 				userExcAttrs.size(), excAttrs.size(), context.getTotalNoopCount(), //
 				context.getExcludeAttrCount(), context.getTotalErrorCount(), activity.getTrackingId(), //
 				context);
@@ -230,28 +246,40 @@ public class DefaultSampleListener implements SampleListener {
 
 	@Override
 	public void pre(SampleContext context, AttributeSample sample) {
+		ObjectName oName = sample.getObjectName();
 		Map<String, MBeanAttributeInfo> aInfoMap = sample.getAttributesInfo();
-		for (Map.Entry<String, MBeanAttributeInfo> aie : aInfoMap.entrySet()) {
-			boolean exclude = !aie.getValue().isReadable() || isExcluded(sample.getObjectName(), aie.getValue());
-
-			if (exclude) {
-				sample.exclude(aie.getValue());
+		ExcludesEntry ee = excludesCache.get(oName);
+		if (ee == null || !ee.isValid(aInfoMap, excVersion.get())) {
+			List<MBeanAttributeInfo> excludes = new ArrayList<>();
+			for (Map.Entry<String, MBeanAttributeInfo> aie : aInfoMap.entrySet()) {
+				boolean exclude = !aie.getValue().isReadable() || isExcluded(oName, aie.getValue());
+
+				if (exclude) {
+					excludes.add(aie.getValue());
+				}
 			}
+			ee = new ExcludesEntry(aInfoMap, excVersion.get(), excludes.toArray(new MBeanAttributeInfo[0]));
+			excludesCache.put(oName, ee);
+		}
+
+		for (MBeanAttributeInfo aInfo : ee.excludes) {
+			sample.exclude(aInfo);
 		}
 	}
 
 	@Override
 	public void post(SampleContext context, AttributeSample sample) throws UnsupportedAttributeException {
 		PropertySnapshot snapshot = sample.getSnapshot();
-		buildLock.lock();
-		try {
-			AttributeList attrList = sample.get();
-			for (Attribute attr : attrList.asList()) {
-				MBeanAttributeInfo mbAttrInfo = sample.getAttributeInfo(attr.getName());
-				processAttrValue(snapshot, mbAttrInfo, initPropName(mbAttrInfo.getName()), attr.getValue());
-			}
-		} finally {
-			buildLock.unlock();
+		AttributeList attrList = sample.get();
+		MetricKeyDictionary.KeyTable keys = MetricKeyDictionary.getInstance().get(sample.getObjectName());
+		for (Attribute attr : attrList.asList()) {
+			MBeanAttributeInfo mbAttrInfo = sample.getAttributeInfo(attr.getName());
+			PropertyNameBuilder propName = initPropName(mbAttrInfo.getName());
+			propName.setKeyTable(keys);
+			processAttrValue(snapshot, mbAttrInfo, propName, attr.getValue());
+		}
+		if (!counterRates.isEmpty()) {
+			counterRates.derive(sample.getObjectName(), snapshot, sample.getTimeStamp());
 		}
 	}
 
@@ -376,15 +404,20 @@ public class DefaultSampleListener implements SampleListener {
 		stats.put(STAT_EXCLUDE_ON_ERROR_MODE, excludeOnError);
 		stats.put(STAT_EXCLUDE_SET_COUNT, excAttrs.size());
 		stats.put(STAT_USER_EXCLUDED_ATTRS_COUNT, userExcAttrs.size());
+		stats.put(STAT_COUNTER_RULES_COUNT, counterRates.getRulesCount());
+		stats.put(STAT_COUNTER_SERIES_COUNT, counterRates.getSeriesCount());
 	}
 
 	@Override
 	public void register(SampleContext context, ObjectName oName) {
+		excludesCache.remove(oName);
 		LOGGER.log(OpLevel.DEBUG, "Register MBean: {0}, mbean.server={1}", oName, context);
 	}
 
 	@Override
 	public void unregister(SampleContext context, ObjectName oName) {
+		excludesCache.remove(oName);
+		counterRates.remove(oName);
 		LOGGER.log(OpLevel.DEBUG, "Un-register MBean: {0}, mbean.server={1}", oName, context);
 	}
 
@@ -468,7 +501,8 @@ public class DefaultSampleListener implements SampleListener {
 	}
 
 	/**
-	 * Initializes (creates or resets) property name builder with provided property name string.
+	 * Initializes (creates or resets) property name builder with provided property name string. Every sampling thread
+	 * uses own property name builder instance.
 	 *
 	 * @param propName
 	 *            property name string
@@ -477,13 +511,15 @@ public class DefaultSampleListener implements SampleListener {
 	 * @see #createPropName(String)
 	 */
 	protected PropertyNameBuilder initPropName(String propName) {
-		if (pnb == null) {
-			pnb = createPropName(propName);
+		PropertyNameBuilder tPnb = pnb.get();
+		if (tPnb == null) {
+			tPnb = createPropName(propName);
+			pnb.set(tPnb);
 		} else {
-			pnb.reset(propName);
+			tPnb.reset(propName);
 		}
 
-		return pnb;
+		return tPnb;
 	}
 
 	/**
@@ -524,7 +560,13 @@ public class DefaultSampleListener implements SampleListener {
 		 * List of user chosen attribute names (may have wildcards {@code '*'} and {@code '?'}) to exclude, pattern:
 		 * {@code "attr1,attr2,...,attrN@MBean1_ObjectName;...;attr1,attr2,...,attrN@MBeanN_ObjectName"}
 		 */
-		USER_EXCLUDED_ATTRIBUTES("excludedAttributes");
+		USER_EXCLUDED_ATTRIBUTES("excludedAttributes"),
+		/**
+		 * List of counter attribute paths (may have wildcards {@code '*'} and {@code '?'}) to derive change delta and per
+		 * second rate values, pattern:
+		 * {@code "path1,path2,...,pathN@MBean1_ObjectName;...;path1,path2,...,pathN@MBeanN_ObjectName"}
+		 */
+		COUNTER_ATTRIBUTES("counterAttributes");
 
 		private final String pName;
 		private final String apName;
@@ -553,4 +595,24 @@ public class DefaultSampleListener implements SampleListener {
 			return apName;
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * MBean attributes exclusion decisions cache entry. Entry is valid while MBean attributes info map instance and
+	 * exclusions version does not change.
+	 */
+	private static class ExcludesEntry {
+		private final Map<String, MBeanAttributeInfo> aInfoMap;
+		private final long version;
+		private final MBeanAttributeInfo[] excludes;
+
+		private ExcludesEntry(Map<String, MBeanAttributeInfo> aInfoMap, long version, MBeanAttributeInfo[] excludes) {
+			this.aInfoMap = aInfoMap;
+			this.version = version;
+			this.excludes = excludes;
+		}
+
+		private boolean isValid(Map<String, MBeanAttributeInfo> aInfoMap, long version) {
+			return this.aInfoMap == aInfoMap && this.version == version;
+		}
+	}
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>
+ * This class defines columnar metric values store. Every metric key gets stable metric id - index of metric values in
+ * store columns. Integral numeric values are kept in {@code long} column, floating point numeric values in
+ * {@code double} column, and only non-numeric values are kept as objects in a side table, so store holds no boxed
+ * numeric values between sampling cycles. Every metric value also has a {@code long} timestamp column.
+ * </p>
+ * <p>
+ * Store is not thread safe: it is intended to keep metric values of single MBean, sampled by single thread at a time.
+ * Boxed values are produced only by {@link #getValue(int)}, when value has to be passed to TNT4J
+ * {@link com.jkoolcloud.tnt4j.core.Snapshot}.
+ * </p>
+ * <p>
+ * Store is used only for metric state agent keeps between sampling cycles: last emitted values of delta snapshots
+ * filter and last counter values of counter rates derivation stage. Rollup buffers keep inner period samples in own
+ * primitive ring buffers. Values of single sampling cycle are <b>not</b> kept in this store: they stay boxed in TNT4J
+ * {@link com.jkoolcloud.tnt4j.core.PropertySnapshot} instances from sampling up to formatting stage, since JMX
+ * returns attribute values boxed, while sample listeners, conditions, TNT4J formatters and sinks consume TNT4J
+ * snapshots.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+public final class MetricColumns {
+	private static final byte T_NONE = 0;
+	private static final byte T_LONG = 1;
+	private static final byte T_DOUBLE = 2;
+	private static final byte T_OBJECT = 3;
+
+	private final Map<String, Integer> ids;
+	private String[] keys;
+	private byte[] types;
+	private long[] longs;
+	private double[] doubles;
+	private long[] stamps;
+	private Object[] objects;
+	private int size = 0;
+
+	/**
+	 * Create columnar metric values store.
+	 *
+	 * @param capacity
+	 *            initial number of metrics store can hold without growing columns
+	 */
+	public MetricColumns(int capacity) {
+		capacity = Math.max(4, capacity);
+		ids = new HashMap<>(capacity * 2);
+		keys = new String[capacity];
+		types = new byte[capacity];
+		longs = new long[capacity];
+		doubles = new double[capacity];
+		stamps = new long[capacity];
+	}
+
+	/**
+	 * Obtain number of metrics in store.
+	 *
+	 * @return number of metrics in store
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Obtain metric id of provided metric key.
+	 *
+	 * @param key
+	 *            metric key
+	 * @return metric id, or {@code -1} if store has no such metric
+	 */
+	public int id(String key) {
+		Integer id = ids.get(key);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Obtain metric id of provided metric key, adding new metric having no value if store has no such metric yet.
+	 *
+	 * @param key
+	 *            metric key
+	 * @return metric id
+	 */
+	public int add(String key) {
+		Integer id = ids.get(key);
+		if (id != null) {
+			return id;
+		}
+
+		if (size == keys.length) {
+			grow(size * 2);
+		}
+		keys[size] = key;
+		types[size] = T_NONE;
+		ids.put(key, size);
+		return size++;
+	}
+
+	private void grow(int capacity) {
+		keys = Arrays.copyOf(keys, capacity);
+		types = Arrays.copyOf(types, capacity);
+		longs = Arrays.copyOf(longs, capacity);
+		doubles = Arrays.copyOf(doubles, capacity);
+		stamps = Arrays.copyOf(stamps, capacity);
+		if (objects != null) {
+			objects = Arrays.copyOf(objects, capacity);
+		}
+	}
+
+	/**
+	 * Obtain metric key.
+	 *
+	 * @param id
+	 *            metric id
+	 * @return metric key
+	 */
+	public String getKey(int id) {
+		return keys[id];
+	}
+
+	/**
+	 * Checks whether metric has any value set.
+	 *
+	 * @param id
+	 *            metric id
+	 * @return {@code true} if metric has value set, {@code false} - otherwise
+	 */
+	public boolean hasValue(int id) {
+		return types[id] != T_NONE;
+	}
+
+	/**
+	 * Checks whether metric has numeric value.
+	 *
+	 * @param id
+	 *            metric id
+	 * @return {@code true} if metric value is numeric, {@code false} - otherwise
+	 */
+	public boolean isNumeric(int id) {
+		return types[id] == T_LONG || types[id] == T_DOUBLE;
+	}
+
+	/**
+	 * Checks whether metric has integral numeric value, kept in {@code long} column.
+	 *
+	 * @param id
+	 *            metric id
+	 * @return {@code true} if metric value is integral, {@code false} - otherwise
+	 */
+	public boolean isLong(int id) {
+		return types[id] == T_LONG;
+	}
+
+	/**
+	 * Obtain metric numeric value as {@code long}. Floating point value is truncated.
+	 *
+	 * @param id
+	 *            metric id
+	 * @return metric numeric value, or {@code 0} if metric value is not numeric
+	 */
+	public long getLong(int id) {
+		switch (types[id]) {
+		case T_LONG:
+			return longs[id];
+		case T_DOUBLE:
+			return (long) doubles[id];
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Obtain metric numeric value as {@code double}.
+	 *
+	 * @param id
+	 *            metric id
+	 * @return metric numeric value, or {@link Double#NaN} if metric value is not numeric
+	 */
+	public double getDouble(int id) {
+		switch (types[id]) {
+		case T_LONG:
+			return longs[id];
+		case T_DOUBLE:
+			return doubles[id];
+		default:
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Obtain metric value timestamp.
+	 *
+	 * @param id
+	 *            metric id
+	 * @return metric value timestamp
+	 */
+	public long getStamp(int id) {
+		return stamps[id];
+	}
+
+	/**
+	 * Obtain metric value as object. Numeric values get boxed, so this method shall be used only when metric value
+	 * has to be passed to object based API.
+	 *
+	 * @param id
+	 *            metric id
+	 * @return metric value, or {@code null} if metric has no value set
+	 */
+	public Object getValue(int id) {
+		switch (types[id]) {
+		case T_LONG:
+			return longs[id];
+		case T_DOUBLE:
+			return doubles[id];
+		case T_OBJECT:
+			return objects[id];
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Checks whether provided value is integral number, stored into {@code long} column.
+	 *
+	 * @param value
+	 *            value to check
+	 * @return {@code true} if value is {@link Long}, {@link Integer}, {@link Short} or {@link Byte}, {@code false} -
+	 *         otherwise
+	 */
+	public static boolean isIntegral(Object value) {
+		return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+	}
+
+	/**
+	 * Sets metric value. {@link Long}, {@link Integer}, {@link Short} and {@link Byte} values are stored into
+	 * {@code long} column, {@link Double} and {@link Float} values into {@code double} column, while all other values
+	 * are kept as objects.
+	 *
+	 * @param id
+	 *            metric id
+	 * @param value
+	 *            metric value
+	 * @param stamp
+	 *            metric value timestamp
+	 * @return {@code true} if metric value has changed, {@code false} - otherwise
+	 */
+	public boolean set(int id, Object value, long stamp) {
+		if (isIntegral(value)) {
+			return setLong(id, ((Number) value).longValue(), stamp);
+		}
+		if (value instanceof Double || value instanceof Float) {
+			return setDouble(id, ((Number) value).doubleValue(), stamp);
+		}
+
+		stamps[id] = stamp;
+		boolean changed = types[id] != T_OBJECT || !Objects.deepEquals(objects[id], value);
+		if (objects == null) {
+			objects = new Object[keys.length];
+		}
+		types[id] = T_OBJECT;
+		objects[id] = value;
+		return changed;
+	}
+
+	/**
+	 * Sets metric {@code long} value.
+	 *
+	 * @param id
+	 *            metric id
+	 * @param value
+	 *            metric value
+	 * @param stamp
+	 *            metric value timestamp
+	 * @return {@code true} if metric value has changed, {@code false} - otherwise
+	 */
+	public boolean setLong(int id, long value, long stamp) {
+		stamps[id] = stamp;
+		boolean changed = types[id] != T_LONG || longs[id] != value;
+		setType(id, T_LONG);
+		longs[id] = value;
+		return changed;
+	}
+
+	/**
+	 * Sets metric {@code double} value.
+	 *
+	 * @param id
+	 *            metric id
+	 * @param value
+	 *            metric value
+	 * @param stamp
+	 *            metric value timestamp
+	 * @return {@code true} if metric value has changed, {@code false} - otherwise
+	 */
+	public boolean setDouble(int id, double value, long stamp) {
+		stamps[id] = stamp;
+		boolean changed = types[id] != T_DOUBLE
+				|| Double.doubleToLongBits(doubles[id]) != Double.doubleToLongBits(value);
+		setType(id, T_DOUBLE);
+		doubles[id] = value;
+		return changed;
+	}
+
+	private void setType(int id, byte type) {
+		if (types[id] == T_OBJECT) {
+			objects[id] = null;
+		}
+		types[id] = type;
+	}
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * This class defines process wide dictionary of metric keys. Dictionary has a table per full MBean
+ * {@link ObjectName}, mapping flattened attribute path to interned metric key string. MBeans having same object name
+ * on different JMX connections (e.g. same layout brokers of a cluster) share same dictionary table, so identical metric
+ * keys are not allocated again for every connection and every sampling cycle.
+ * </p>
+ * <p>
+ * MBean table is acquired when MBean gets registered for sampling and released when MBean gets unregistered. Table is
+ * evicted from dictionary when it is released by all JMX connections. Total number of dictionary keys is bounded by
+ * {@code com.jkoolcloud.tnt4j.stream.jmx.metric.keys.max} system property value (default {@value #DEFAULT_MAX_KEYS}):
+ * when bound is reached, new keys are not added to dictionary and fresh key strings are returned instead.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+public final class MetricKeyDictionary {
+	/**
+	 * Default maximum number of dictionary keys.
+	 */
+	public static final int DEFAULT_MAX_KEYS = 500000;
+
+	private static final MetricKeyDictionary INSTANCE = new MetricKeyDictionary(
+			Integer.getInteger("com.jkoolcloud.tnt4j.stream.jmx.metric.keys.max", DEFAULT_MAX_KEYS));
+
+	private final int maxKeys;
+	private final AtomicInteger keyCount = new AtomicInteger();
+	private final Map<ObjectName, KeyTable> tables = new ConcurrentHashMap<>(256);
+
+	private MetricKeyDictionary(int maxKeys) {
+		this.maxKeys = maxKeys;
+	}
+
+	/**
+	 * Returns process wide metric keys dictionary instance.
+	 *
+	 * @return metric keys dictionary instance
+	 */
+	public static MetricKeyDictionary getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Acquires metric keys table for provided MBean, creating new one if no JMX connection has acquired it yet.
+	 *
+	 * @param name
+	 *            MBean object name
+	 */
+	public void acquire(ObjectName name) {
+		tables.compute(name, (k, table) -> {
+			if (table == null) {
+				table = new KeyTable(this);
+			}
+			table.refs++;
+			return table;
+		});
+	}
+
+	/**
+	 * Releases metric keys table of provided MBean. Table is evicted when it gets released by all JMX connections that
+	 * have acquired it.
+	 *
+	 * @param name
+	 *            MBean object name
+	 */
+	public void release(ObjectName name) {
+		tables.computeIfPresent(name, (k, table) -> {
+			if (--table.refs > 0) {
+				return table;
+			}
+			synchronized (table) {
+				table.evicted = true;
+				keyCount.addAndGet(-table.size);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Obtain metric keys table of provided MBean.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @return MBean metric keys table, or {@code null} if MBean table is not acquired
+	 */
+	public KeyTable get(ObjectName name) {
+		return tables.get(name);
+	}
+
+	/**
+	 * Obtain number of keys in dictionary.
+	 *
+	 * @return number of dictionary keys
+	 */
+	public int size() {
+		return keyCount.get();
+	}
+
+	/**
+	 * Obtain number of MBean tables in dictionary.
+	 *
+	 * @return number of dictionary MBean tables
+	 */
+	public int getTablesCount() {
+		return tables.size();
+	}
+
+	private boolean reserveKey() {
+		if (keyCount.incrementAndGet() > maxKeys) {
+			keyCount.decrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Single MBean metric keys table. Keys are looked up by attribute path character sequence, so no key string is
+	 * allocated for already known attribute path. Lookups are lock free, while new keys are added under table lock.
+	 */
+	public static final class KeyTable {
+		private final MetricKeyDictionary dictionary;
+		private volatile Entry[] slots = new Entry[16];
+		private int size = 0;
+		private int refs = 0;
+		private volatile boolean evicted = false;
+
+		private KeyTable(MetricKeyDictionary dictionary) {
+			this.dictionary = dictionary;
+		}
+
+		/**
+		 * Checks whether this table has been evicted from dictionary, e.g. when MBean gets unregistered.
+		 *
+		 * @return {@code true} if table is evicted from dictionary, {@code false} - otherwise
+		 */
+		public boolean isEvicted() {
+			return evicted;
+		}
+
+		/**
+		 * Obtain interned metric key string for provided attribute path.
+		 *
+		 * @param path
+		 *            attribute path characters
+		 * @return interned metric key string, or fresh string if dictionary bound is reached
+		 */
+		public String intern(CharSequence path) {
+			Entry entry = lookup(path);
+			return entry == null ? path.toString() : entry.key;
+		}
+
+		private Entry lookup(CharSequence path) {
+			int hash = hash(path);
+			Entry entry = find(slots, path, hash);
+			return entry == null ? add(path, hash) : entry;
+		}
+
+		private static Entry find(Entry[] tab, CharSequence path, int hash) {
+			int mask = tab.length - 1;
+			for (int i = hash & mask;; i = (i + 1) & mask) {
+				Entry e = tab[i];
+				if (e == null) {
+					return null;
+				}
+				if (e.hash == hash && e.key.contentEquals(path)) {
+					return e;
+				}
+			}
+		}
+
+		private synchronized Entry add(CharSequence path, int hash) {
+			Entry[] tab = slots;
+			Entry entry = find(tab, path, hash);
+			if (entry != null) {
+				return entry;
+			}
+			if (evicted || !dictionary.reserveKey()) {
+				return null;
+			}
+
+			entry = new Entry(path.toString(), hash);
+			if ((size + 1) * 4 > tab.length * 3) {
+				tab = resize(tab);
+			}
+			put(tab, entry);
+			size++;
+			slots = tab;
+			return entry;
+		}
+
+		private static Entry[] resize(Entry[] tab) {
+			Entry[] newTab = new Entry[tab.length * 2];
+			for (Entry e : tab) {
+				if (e != null) {
+					put(newTab, e);
+				}
+			}
+			return newTab;
+		}
+
+		private static void put(Entry[] tab, Entry entry) {
+			int mask = tab.length - 1;
+			int i = entry.hash & mask;
+			while (tab[i] != null) {
+				i = (i + 1) & mask;
+			}
+			tab[i] = entry;
+		}
+
+		private static int hash(CharSequence cs) {
+			int h = 0;
+			for (int i = 0; i < cs.length(); i++) {
+				h = 31 * h + cs.charAt(i);
+			}
+			return h ^ (h >>> 16);
+		}
+	}
+
+	private static final class Entry {
+		private final String key;
+		private final int hash;
+
+		private Entry(String key, int hash) {
+			this.key = key;
+			this.hash = hash;
+		}
+	}
+}
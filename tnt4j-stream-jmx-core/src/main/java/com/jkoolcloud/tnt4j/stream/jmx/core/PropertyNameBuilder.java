@@ -35,6 +35,7 @@ public class PropertyNameBuilder {
 	private Deque<Integer> marks;
 	private final String delimiter;
 	private String delimReplacement = DEFAULT_COMPOSITE_DELIMITER_REPLACEMENT;
+	private MetricKeyDictionary.KeyTable keys;
 
 	/**
 	 * Constructs a new PropertyNameBuilder. Default delimiter is {@code "\"}.
@@ -116,12 +117,25 @@ public class PropertyNameBuilder {
 	 * @see #popLevel()
 	 */
 	public String propString() {
-		String str = sb.toString();
+		String str = keys == null ? sb.toString() : keys.intern(sb);
 		popLevel();
 
 		return str;
 	}
 
+	/**
+	 * Sets metric keys dictionary table used to obtain interned property name strings, instead of building new string
+	 * every time {@link #propString()} is called.
+	 *
+	 * @param keys
+	 *            metric keys dictionary table, or {@code null} to build new property name strings
+	 *
+	 * @see MetricKeyDictionary
+	 */
+	public void setKeyTable(MetricKeyDictionary.KeyTable keys) {
+		this.keys = keys;
+	}
+
 	/**
 	 * Checks whether internal {@link StringBuilder} contained property name is empty.
 	 *
@@ -105,4 +105,18 @@ public interface SampleContext {
 	 * @return number of excluded MBean attributes
 	 */
 	long getExcludeAttrCount();
+
+	/**
+	 * Obtain MBeans discovery progress: percentage of MBeans, matching sampler filters, having their metadata loaded
+	 * and being registered for sampling. MBeans are discovered asynchronously, so first sampling cycles may sample only
+	 * part of matching MBeans.
+	 * <p>
+	 * Default implementation reports discovery as complete, so context implementations not tracking MBeans discovery
+	 * need not implement this method.
+	 * 
+	 * @return MBeans discovery progress percentage, {@code 100} when discovery is complete
+	 */
+	default double getDiscoveryProgress() {
+		return 100.0;
+	}
 }
@@ -30,6 +30,14 @@ import com.jkoolcloud.tnt4j.stream.jmx.conditions.NestedHandler;
  * <p>
  * This interface provides a way to get call backs on every sample:pre, during, post each sample.
  * </p>
+ * <p>
+ * MBean info and attribute handles passed to listener are compact copies pooled by
+ * {@link com.jkoolcloud.tnt4j.stream.jmx.conditions.MBeanInfoPool}: they have MBean class name and attributes name,
+ * type, description and access flags, while MBean description, MBean and attribute descriptors, constructors,
+ * operations and notifications are dropped. Listener needing dropped metadata shall fetch it from MBean server using
+ * {@link SampleContext#getMBeanServer()}. Pooled instances are shared by all same layout MBeans and must not be
+ * modified.
+ * </p>
  * 
  * @see Sampler
  * @see NestedHandler
@@ -92,7 +100,7 @@ public interface SampleListener {
 	 * @param name
 	 *            MBean object name
 	 * @param info
-	 *            MBean info
+	 *            pooled compact MBean info
 	 * @param snapshot
 	 *            MBean attribute values snapshot
 	 */
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * This class provides decoding of frames produced by {@link BinaryFactFormatter}. Decoder keeps keys dictionary of
+ * single formatter session, so frames shall be decoded in same order as they were formatted, starting from session
+ * first frame.
+ *
+ * @version $Revision: 1 $
+ *
+ * @see BinaryFactFormatter
+ */
+public class BinaryFactDecoder {
+	private final List<String> dictionary = new ArrayList<>(1024);
+	private boolean sessionStarted = false;
+
+	/**
+	 * Constructs a new instance of {@code BinaryFactDecoder}.
+	 */
+	public BinaryFactDecoder() {
+	}
+
+	/**
+	 * Decodes Base64 encoded frame, as produced by {@link BinaryFactFormatter} format methods.
+	 *
+	 * @param frameStr
+	 *            Base64 encoded frame string
+	 * @return decoded frame
+	 * @throws IOException
+	 *             if frame is malformed or references keys unknown to this decoder session
+	 */
+	public Frame decode(String frameStr) throws IOException {
+		byte[] bytes;
+		try {
+			bytes = Base64.getDecoder().decode(frameStr.trim());
+		} catch (IllegalArgumentException exc) {
+			throw new IOException("Frame is not Base64 encoded", exc);
+		}
+		return decode(bytes);
+	}
+
+	/**
+	 * Decodes single length prefixed frame.
+	 *
+	 * @param frame
+	 *            frame bytes
+	 * @return decoded frame
+	 * @throws IOException
+	 *             if frame is malformed or references keys unknown to this decoder session
+	 */
+	public Frame decode(byte[] frame) throws IOException {
+		Reader rdr = new Reader(frame);
+		int length = (int) rdr.readVarint();
+		if (length != frame.length - rdr.pos) {
+			throw new IOException("Frame length mismatch: expected=" + length + ", actual=" + (frame.length - rdr.pos));
+		}
+		return readBody(rdr);
+	}
+
+	/**
+	 * Reads and decodes next raw (not Base64 encoded) length prefixed frame from provided input stream.
+	 *
+	 * @param in
+	 *            input stream to read
+	 * @return decoded frame, or {@code null} if end of stream is reached
+	 * @throws IOException
+	 *             if frame can't be read, is malformed or references keys unknown to this decoder session
+	 */
+	public Frame read(InputStream in) throws IOException {
+		long length = 0;
+		for (int shift = 0;; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				if (shift == 0) {
+					return null;
+				}
+				throw new EOFException("Unexpected end of stream reading frame length");
+			}
+			length |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				break;
+			}
+			if (shift > 28) {
+				throw new IOException("Malformed frame length");
+			}
+		}
+
+		byte[] body = new byte[(int) length];
+		int read = 0;
+		while (read < body.length) {
+			int r = in.read(body, read, body.length - read);
+			if (r < 0) {
+				throw new EOFException("Unexpected end of stream reading frame");
+			}
+			read += r;
+		}
+		return readBody(new Reader(body));
+	}
+
+	private Frame readBody(Reader rdr) throws IOException {
+		try {
+			byte flags = rdr.readByte();
+			if ((flags & BinaryFactFormatter.FLAG_RESET) != 0) {
+				dictionary.clear();
+				sessionStarted = true;
+			} else if (!sessionStarted) {
+				throw new IOException("Frame does not belong to decoded session");
+			}
+
+			byte type = rdr.readByte();
+			String path = readKey(rdr);
+			int count = (int) rdr.readVarint();
+			Map<String, Object> facts = new LinkedHashMap<>(Math.min(count, 1024) * 4 / 3 + 1);
+			for (int i = 0; i < count; i++) {
+				String key = readKey(rdr);
+				facts.put(key, readValue(rdr));
+			}
+			if (rdr.pos != rdr.buf.length) {
+				throw new IOException("Frame has " + (rdr.buf.length - rdr.pos) + " unread bytes");
+			}
+
+			return new Frame(type, path, facts);
+		} catch (IndexOutOfBoundsException exc) {
+			throw new IOException("Frame is truncated", exc);
+		}
+	}
+
+	private String readKey(Reader rdr) throws IOException {
+		long ref = rdr.readVarint();
+		int id = (int) (ref >>> 1);
+		if ((ref & 1) != 0) {
+			if (id != dictionary.size()) {
+				throw new IOException("Unexpected key id: expected=" + dictionary.size() + ", actual=" + id);
+			}
+			String key = rdr.readString();
+			dictionary.add(key);
+			return key;
+		}
+		if (id >= dictionary.size()) {
+			throw new IOException("Unknown key id: " + id);
+		}
+		return dictionary.get(id);
+	}
+
+	private static Object readValue(Reader rdr) throws IOException {
+		char type = (char) rdr.readByte();
+		switch (type) {
+		case 'I':
+			return (int) rdr.readZigzag();
+		case 'L':
+			return rdr.readZigzag();
+		case 'F':
+			return Float.intBitsToFloat((int) rdr.readFixed(4));
+		case 'D':
+			return Double.longBitsToDouble(rdr.readFixed(8));
+		case 'B':
+			return rdr.readByte() != 0;
+		case 'T':
+			return new Date(rdr.readZigzag());
+		case 'X':
+			return rdr.readBytes();
+		case 'S':
+		case 'V':
+			return rdr.readString();
+		default:
+			throw new IOException("Unknown value type: " + type);
+		}
+	}
+
+	/**
+	 * Decoded frame: entity type, object path and facts.
+	 */
+	public static class Frame {
+		private final byte type;
+		private final String path;
+		private final Map<String, Object> facts;
+
+		private Frame(byte type, String path, Map<String, Object> facts) {
+			this.type = type;
+			this.path = path;
+			this.facts = Collections.unmodifiableMap(facts);
+		}
+
+		/**
+		 * Returns frame entity type.
+		 *
+		 * @return frame entity type
+		 *
+		 * @see BinaryFactFormatter#TYPE_ACTIVITY
+		 * @see BinaryFactFormatter#TYPE_EVENT
+		 * @see BinaryFactFormatter#TYPE_SNAPSHOT
+		 * @see BinaryFactFormatter#TYPE_MESSAGE
+		 */
+		public byte getType() {
+			return type;
+		}
+
+		/**
+		 * Returns frame entity object path.
+		 *
+		 * @return frame entity object path
+		 */
+		public String getPath() {
+			return path;
+		}
+
+		/**
+		 * Returns frame facts map, preserving formatted facts order.
+		 *
+		 * @return frame facts map
+		 */
+		public Map<String, Object> getFacts() {
+			return facts;
+		}
+
+		@Override
+		public String toString() {
+			return "Frame{type=" + type + ", path=" + path + ", facts=" + facts + "}"; // NON-NLS
+		}
+	}
+
+	private static class Reader {
+		private final byte[] buf;
+		private int pos = 0;
+
+		private Reader(byte[] buf) {
+			this.buf = buf;
+		}
+
+		byte readByte() {
+			return buf[pos++];
+		}
+
+		long readVarint() throws IOException {
+			long v = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				byte b = buf[pos++];
+				v |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return v;
+				}
+			}
+			throw new IOException("Malformed varint");
+		}
+
+		long readZigzag() throws IOException {
+			long v = readVarint();
+			return (v >>> 1) ^ -(v & 1);
+		}
+
+		long readFixed(int size) {
+			long v = 0;
+			for (int i = 0; i < size; i++) {
+				v = (v << 8) | (buf[pos++] & 0xFF);
+			}
+			return v;
+		}
+
+		byte[] readBytes() throws IOException {
+			int length = (int) readVarint();
+			if (length < 0 || length > buf.length - pos) {
+				throw new IOException("Malformed bytes length: " + length);
+			}
+			byte[] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+			pos += length;
+			return bytes;
+		}
+
+		String readString() throws IOException {
+			int length = (int) readVarint();
+			if (length < 0 || length > buf.length - pos) {
+				throw new IOException("Malformed string length: " + length);
+			}
+			String str = new String(buf, pos, length, StandardCharsets.UTF_8);
+			pos += length;
+			return str;
+		}
+	}
+}
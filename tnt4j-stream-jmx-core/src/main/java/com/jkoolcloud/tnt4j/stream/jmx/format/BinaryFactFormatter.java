@@ -0,0 +1,332 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import com.jkoolcloud.tnt4j.core.OpLevel;
+import com.jkoolcloud.tnt4j.core.Property;
+import com.jkoolcloud.tnt4j.core.Snapshot;
+import com.jkoolcloud.tnt4j.source.Source;
+import com.jkoolcloud.tnt4j.stream.jmx.utils.Utils;
+import com.jkoolcloud.tnt4j.tracker.TrackingActivity;
+import com.jkoolcloud.tnt4j.tracker.TrackingEvent;
+
+/**
+ * This class provides compact binary formatting for tnt4j activities, events and snapshots. Every formatted entity is
+ * a frame made of entity object path and facts, same as {@link FactNameValueFormatter} produces, but having keys
+ * dictionary encoded and values typed:
+ * <p>
+ * {@code frame := length:varint flags:byte type:byte path:key count:varint (key:key valueType:byte value)*}
+ * </p>
+ * <ul>
+ * <li>{@code key} - {@code (id << 1 | 1):varint string} for key sent first time in session, {@code (id << 1):varint}
+ * for key already sent. Key ids are assigned sequentially starting from {@code 0}.</li>
+ * <li>{@code string} - {@code length:varint UTF-8 bytes}</li>
+ * <li>{@code valueType} - value type symbol, same as AutoPilot fact value type prefix (see
+ * {@link #getAPValueType(Object)}): {@code 'I'} and {@code 'L'} - zigzag varint, {@code 'F'} and {@code 'D'} - IEEE
+ * 754 bits, {@code 'B'} - byte, {@code 'T'} - zigzag varint epoch millis, {@code 'X'} - {@code length:varint bytes},
+ * {@code 'S'} and {@code 'V'} - string.</li>
+ * </ul>
+ * Keys dictionary is bound to session: first frame of session has flag {@link #FLAG_RESET} set, telling decoder to
+ * start new dictionary. New session is started when dictionary reaches configuration defined (cfg. key
+ * {@code "MaxDictionarySize"}, default value {@value #DEFAULT_MAX_DICTIONARY_SIZE}) size, session reaches
+ * configuration defined (cfg. key {@code "MaxSessionFrames"}, default value {@value #DEFAULT_MAX_SESSION_FRAMES})
+ * number of frames or {@link #resetSession()} is called. Since sinks do not notify formatter when they get
+ * (re)connected, periodic session reset lets decoder, which has missed session first frame (e.g. after sink
+ * reconnect), resume decoding at next session start. Frames of a session shall be written in formatting order.
+ * <p>
+ * Since formatter API produces strings, frame bytes are Base64 encoded.
+ *
+ * @version $Revision: 1 $
+ *
+ * @see BinaryFactDecoder
+ */
+public class BinaryFactFormatter extends FactNameValueFormatter {
+	/**
+	 * Defines default maximum keys dictionary size {@value}.
+	 */
+	public static final int DEFAULT_MAX_DICTIONARY_SIZE = 65536;
+	/**
+	 * Defines default maximum number of frames in keys dictionary session {@value}.
+	 */
+	public static final int DEFAULT_MAX_SESSION_FRAMES = 1000;
+
+	/**
+	 * Frame flag indicating new keys dictionary session start.
+	 */
+	public static final byte FLAG_RESET = 0x01;
+
+	/**
+	 * Activity frame type.
+	 */
+	public static final byte TYPE_ACTIVITY = 1;
+	/**
+	 * Event frame type.
+	 */
+	public static final byte TYPE_EVENT = 2;
+	/**
+	 * Snapshot frame type.
+	 */
+	public static final byte TYPE_SNAPSHOT = 3;
+	/**
+	 * Log message frame type.
+	 */
+	public static final byte TYPE_MESSAGE = 4;
+
+	/**
+	 * Maximum keys dictionary size.
+	 */
+	protected int maxDictionarySize = DEFAULT_MAX_DICTIONARY_SIZE;
+	/**
+	 * Maximum number of frames in keys dictionary session, {@code 0} means session is not reset periodically.
+	 */
+	protected int maxSessionFrames = DEFAULT_MAX_SESSION_FRAMES;
+
+	private final Map<String, Integer> dictionary = new HashMap<>(1024);
+	private boolean sessionStart = true;
+	private int sessionFrames = 0;
+	private final FrameWriter writer = new FrameWriter();
+
+	/**
+	 * Constructs a new instance of {@code BinaryFactFormatter}.
+	 */
+	public BinaryFactFormatter() {
+		super();
+	}
+
+	@Override
+	public synchronized String format(TrackingEvent event) {
+		putSelfSnapshot(event);
+
+		String path = getPath(event.getSource()) + PATH_DELIM + event.getName() + PATH_DELIM + "Events";
+		return toFrame(TYPE_EVENT, path, getSnapshots(event.getOperation()));
+	}
+
+	@Override
+	public synchronized String format(TrackingActivity activity) {
+		putSelfSnapshot(activity);
+
+		String path = getPath(activity.getSource()) + PATH_DELIM + "Activities";
+		return toFrame(TYPE_ACTIVITY, path, getSnapshots(activity));
+	}
+
+	@Override
+	public synchronized String format(Snapshot snapshot) {
+		String path = getPath(snapshot.getSource()) + PATH_DELIM + snapshot.getCategory();
+		return toFrame(TYPE_SNAPSHOT, path, Collections.singletonList(snapshot));
+	}
+
+	@Override
+	public synchronized String format(long ttl, Source source, OpLevel level, String msg, Object... args) {
+		try {
+			startFrame(TYPE_MESSAGE, getPath(source) + PATH_DELIM + "Message", 2);
+			writeFact("Self" + PATH_DELIM + "level", level);
+			writeFact("Self" + PATH_DELIM + "msg-text", Utils.format(msg, args));
+			return writer.toFrame();
+		} catch (RuntimeException exc) {
+			resetSession();
+			throw exc;
+		}
+	}
+
+	/**
+	 * Starts new keys dictionary session: next formatted frame will have {@link #FLAG_RESET} flag set and all keys
+	 * will be sent again.
+	 */
+	public synchronized void resetSession() {
+		dictionary.clear();
+		sessionStart = true;
+		sessionFrames = 0;
+	}
+
+	private String getPath(Source source) {
+		return source == null ? "" : toString(new StringBuilder(128), source).toString();
+	}
+
+	private String toFrame(byte type, String path, Collection<Snapshot> sList) {
+		int count = 0;
+		for (Snapshot snap : sList) {
+			for (Property p : getProperties(snap)) {
+				if (!p.isTransient()) {
+					count++;
+				}
+			}
+		}
+
+		try {
+			startFrame(type, path, count);
+			for (Snapshot snap : sList) {
+				FactKeys fKeys = getFactKeys(snap);
+				String sName = getSnapName(snap, fKeys);
+				for (Property p : getProperties(snap)) {
+					if (p.isTransient()) {
+						continue;
+					}
+
+					writeFact(getFactKey(fKeys, sName, p.getKey()), p.getValue());
+				}
+			}
+
+			return writer.toFrame();
+		} catch (RuntimeException exc) { // NOTE: frame keys are not delivered, so decoder dictionary gets out of sync
+			resetSession();
+			throw exc;
+		}
+	}
+
+	private void startFrame(byte type, String path, int factsCount) {
+		if (dictionary.size() >= maxDictionarySize || (maxSessionFrames > 0 && sessionFrames >= maxSessionFrames)) {
+			resetSession();
+		}
+
+		writer.reset();
+		writer.writeByte(sessionStart ? FLAG_RESET : 0);
+		writer.writeByte(type);
+		writeKey(path);
+		writer.writeVarint(factsCount);
+		sessionStart = false;
+		sessionFrames++;
+	}
+
+	private void writeFact(String key, Object value) {
+		writeKey(key);
+		writeValue(value);
+	}
+
+	private void writeKey(String key) {
+		Integer id = dictionary.get(key);
+		if (id == null) {
+			id = dictionary.size();
+			dictionary.put(key, id);
+			writer.writeVarint(((long) id << 1) | 1);
+			writer.writeString(key);
+		} else {
+			writer.writeVarint((long) id << 1);
+		}
+	}
+
+	/**
+	 * Writes typed value. Value types mirror {@link #getAPValueType(Object)} categories.
+	 *
+	 * @param value
+	 *            value to write
+	 */
+	private void writeValue(Object value) {
+		if (value instanceof Integer) {
+			writer.writeByte('I');
+			writer.writeZigzag((Integer) value);
+		} else if (value instanceof Long) {
+			writer.writeByte('L');
+			writer.writeZigzag((Long) value);
+		} else if (value instanceof Float) {
+			writer.writeByte('F');
+			writer.writeFixed(Float.floatToIntBits((Float) value), 4);
+		} else if (value instanceof Double) {
+			writer.writeByte('D');
+			writer.writeFixed(Double.doubleToLongBits((Double) value), 8);
+		} else if (value instanceof Boolean) {
+			writer.writeByte('B');
+			writer.writeByte((Boolean) value ? 1 : 0);
+		} else if (value instanceof String) {
+			writer.writeByte('S');
+			writer.writeString((String) value);
+		} else if (value instanceof Date) {
+			writer.writeByte('T');
+			writer.writeZigzag(((Date) value).getTime());
+		} else if (value instanceof byte[]) {
+			writer.writeByte('X');
+			writer.writeBytes((byte[]) value);
+		} else {
+			writer.writeByte('V');
+			writer.writeString(Utils.toString(value));
+		}
+	}
+
+	@Override
+	public void setConfiguration(Map<String, ?> settings) {
+		super.setConfiguration(settings);
+
+		maxDictionarySize = Utils.getInt("MaxDictionarySize", settings, maxDictionarySize);
+		maxSessionFrames = Utils.getInt("MaxSessionFrames", settings, maxSessionFrames);
+		resetSession();
+	}
+
+	/**
+	 * Growable frame bytes buffer, reused by all frames of formatter.
+	 */
+	private static class FrameWriter {
+		private byte[] buf = new byte[1024];
+		private int pos = 0;
+
+		void reset() {
+			pos = 0;
+		}
+
+		private void ensure(int size) {
+			if (pos + size > buf.length) {
+				buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + size));
+			}
+		}
+
+		void writeByte(int b) {
+			ensure(1);
+			buf[pos++] = (byte) b;
+		}
+
+		void writeVarint(long v) {
+			ensure(10);
+			while ((v & ~0x7FL) != 0) {
+				buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			buf[pos++] = (byte) v;
+		}
+
+		void writeZigzag(long v) {
+			writeVarint((v << 1) ^ (v >> 63));
+		}
+
+		void writeFixed(long v, int size) {
+			ensure(size);
+			for (int i = size - 1; i >= 0; i--) {
+				buf[pos++] = (byte) (v >>> (i * 8));
+			}
+		}
+
+		void writeBytes(byte[] bytes) {
+			writeVarint(bytes.length);
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, buf, pos, bytes.length);
+			pos += bytes.length;
+		}
+
+		void writeString(String str) {
+			writeBytes(str.getBytes(StandardCharsets.UTF_8));
+		}
+
+		String toFrame() {
+			int length = pos;
+			writeVarint(length);
+			int lengthSize = pos - length;
+			byte[] frame = new byte[pos];
+			System.arraycopy(buf, length, frame, 0, lengthSize);
+			System.arraycopy(buf, 0, frame, lengthSize, length);
+			return Base64.getEncoder().encodeToString(frame);
+		}
+	}
+}
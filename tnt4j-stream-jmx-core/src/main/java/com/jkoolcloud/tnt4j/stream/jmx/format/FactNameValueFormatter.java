@@ -16,6 +16,8 @@
 package com.jkoolcloud.tnt4j.stream.jmx.format;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.management.ObjectName;
 
@@ -24,6 +26,7 @@ import org.apache.commons.lang3.StringUtils;
 import com.jkoolcloud.tnt4j.core.*;
 import com.jkoolcloud.tnt4j.format.DefaultFormatter;
 import com.jkoolcloud.tnt4j.source.Source;
+import com.jkoolcloud.tnt4j.stream.jmx.core.MetricKeyDictionary;
 import com.jkoolcloud.tnt4j.stream.jmx.utils.Utils;
 import com.jkoolcloud.tnt4j.tracker.TrackingActivity;
 import com.jkoolcloud.tnt4j.tracker.TrackingEvent;
@@ -54,6 +57,11 @@ public class FactNameValueFormatter extends DefaultFormatter {
 
 	private static final String SNAP_NAME_PROP = "JMX_SNAP_NAME";
 
+	private static final int BUFFER_SIZE = 1024;
+	private static final int MAX_REUSED_BUFFER_SIZE = 1024 * 1024;
+	private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal
+			.withInitial(() -> new StringBuilder(BUFFER_SIZE));
+
 	/**
 	 * Mapping of attribute key string symbol replacements.
 	 */
@@ -62,12 +70,36 @@ public class FactNameValueFormatter extends DefaultFormatter {
 	 * Mapping of attribute value string symbol replacements.
 	 */
 	protected Map<String, String> valueReplacements = new LinkedHashMap<>();
+	/**
+	 * Compiled attribute key string symbol replacements.
+	 */
+	protected SymbolReplacer keyReplacer = SymbolReplacer.NONE;
+	/**
+	 * Compiled attribute value string symbol replacements.
+	 */
+	protected SymbolReplacer valueReplacer = SymbolReplacer.NONE;
 
 	private boolean addSelfSnapshot = true;
 	/**
 	 * Flag indicating whether to add AutoPilot fact value type prefixes for fact names. Default is {@code false}.
 	 */
 	protected boolean addAPValueTypePrefix = false;
+	/**
+	 * Flag indicating whether to reuse thread bound format buffers and apply symbol replacements in place, without
+	 * making intermediate key and value strings. Default is {@code false}.
+	 */
+	protected boolean reuseBuffers = false;
+	/**
+	 * Maximum number of rendered fact keys cached across sampling cycles. Default is
+	 * {@value com.jkoolcloud.tnt4j.stream.jmx.core.MetricKeyDictionary#DEFAULT_MAX_KEYS}, {@code 0} disables cache.
+	 */
+	protected int factKeysCacheSize = MetricKeyDictionary.DEFAULT_MAX_KEYS;
+
+	private static final int FACT_KEYS_SWEEP_MISSES = 64;
+
+	private final Map<MetricKeyDictionary.KeyTable, FactKeys> factKeys = new ConcurrentHashMap<>(256);
+	private final AtomicInteger factKeysCount = new AtomicInteger();
+	private final AtomicInteger factKeysMisses = new AtomicInteger();
 
 	public FactNameValueFormatter() {
 		super("time.stamp={2},level={1},source={3},msg=\"{0}\"");
@@ -75,35 +107,26 @@ public class FactNameValueFormatter extends DefaultFormatter {
 		// adding mandatory value symbols replacements
 		valueReplacements.put(CR, "\\r");
 		valueReplacements.put(LF, "\\n");
+		compileReplacements();
 	}
 
 	@Override
 	public String format(TrackingEvent event) {
-		StringBuilder nvString = new StringBuilder(1024);
+		StringBuilder nvString = getBuffer();
 
 		nvString.append("OBJ:");
 		// ------------------------------------------------------------- name
 		toString(nvString, event.getSource()).append(PATH_DELIM).append(event.getName()).append(PATH_DELIM)
 				.append("Events").append(FIELD_SEP);
 
-		if (addSelfSnapshot && event.getOperation().getSnapshot(SELF_SNAP_ID) == null) {
-			Snapshot selfSnapshot = getSelfSnapshot(event.getOperation());
-			if (event.getTag() != null) {
-				Set<String> tags = event.getTag();
-				if (!tags.isEmpty()) {
-					selfSnapshot.add("tag", tags);
-				}
-			}
-
-			event.getOperation().addSnapshot(selfSnapshot);
-		}
+		putSelfSnapshot(event);
 
 		Collection<Snapshot> sList = getSnapshots(event.getOperation());
 		for (Snapshot snap : sList) {
 			toString(nvString, snap);
 		}
 
-		return nvString.append(END_SEP).toString();
+		return toFormatted(nvString.append(END_SEP));
 	}
 
 	/**
@@ -119,24 +142,56 @@ public class FactNameValueFormatter extends DefaultFormatter {
 
 	@Override
 	public String format(TrackingActivity activity) {
-		StringBuilder nvString = new StringBuilder(1024);
+		StringBuilder nvString = getBuffer();
 
 		nvString.append("OBJ:");
 		toString(nvString, activity.getSource()).append(PATH_DELIM).append("Activities").append(FIELD_SEP);
 
-		if (addSelfSnapshot && activity.getSnapshot(SELF_SNAP_ID) == null) {
-			Snapshot selfSnapshot = getSelfSnapshot(activity);
-			selfSnapshot.add("id.count", activity.getIdCount());
-
-			activity.addSnapshot(selfSnapshot);
-		}
+		putSelfSnapshot(activity);
 
 		Collection<Snapshot> sList = getSnapshots(activity);
 		for (Snapshot snap : sList) {
 			toString(nvString, snap);
 		}
 
-		return nvString.append(END_SEP).toString();
+		return toFormatted(nvString.append(END_SEP));
+	}
+
+	/**
+	 * Adds context data snapshot {@code 'Self'} to provided event operation, if formatter is configured to add it and
+	 * operation has no such snapshot yet.
+	 *
+	 * @param event
+	 *            event instance
+	 */
+	protected void putSelfSnapshot(TrackingEvent event) {
+		if (addSelfSnapshot && event.getOperation().getSnapshot(SELF_SNAP_ID) == null) {
+			Snapshot selfSnapshot = getSelfSnapshot(event.getOperation());
+			if (event.getTag() != null) {
+				Set<String> tags = event.getTag();
+				if (!tags.isEmpty()) {
+					selfSnapshot.add("tag", tags);
+				}
+			}
+
+			event.getOperation().addSnapshot(selfSnapshot);
+		}
+	}
+
+	/**
+	 * Adds context data snapshot {@code 'Self'} to provided activity, if formatter is configured to add it and
+	 * activity has no such snapshot yet.
+	 *
+	 * @param activity
+	 *            activity instance
+	 */
+	protected void putSelfSnapshot(TrackingActivity activity) {
+		if (addSelfSnapshot && activity.getSnapshot(SELF_SNAP_ID) == null) {
+			Snapshot selfSnapshot = getSelfSnapshot(activity);
+			selfSnapshot.add("id.count", activity.getIdCount());
+
+			activity.addSnapshot(selfSnapshot);
+		}
 	}
 
 	private Snapshot getSelfSnapshot(Operation op) {
@@ -165,19 +220,19 @@ public class FactNameValueFormatter extends DefaultFormatter {
 
 	@Override
 	public String format(Snapshot snapshot) {
-		StringBuilder nvString = new StringBuilder(1024);
+		StringBuilder nvString = getBuffer();
 
 		// ------------------------------------------------------ category, id or name
 		nvString.append("OBJ:");
 		toString(nvString, snapshot.getSource()).append(PATH_DELIM).append(snapshot.getCategory()).append(FIELD_SEP);
 		toString(nvString, snapshot).append(END_SEP);
 
-		return nvString.toString();
+		return toFormatted(nvString);
 	}
 
 	@Override
 	public String format(long ttl, Source source, OpLevel level, String msg, Object... args) {
-		StringBuilder nvString = new StringBuilder(1024);
+		StringBuilder nvString = getBuffer();
 
 		nvString.append("OBJ:");
 		toString(nvString, source).append(PATH_DELIM).append("Message").append(FIELD_SEP);
@@ -185,11 +240,45 @@ public class FactNameValueFormatter extends DefaultFormatter {
 		formatValue(nvString, level, FIELD_SEP);
 		nvString.append(SELF_SNAP_NAME).append(PATH_DELIM).append("msg-text");
 		formatValue(nvString, Utils.format(msg, args), END_SEP);
-		return nvString.toString();
+		return toFormatted(nvString);
+	}
+
+	/**
+	 * Returns string builder to format entity into. When buffers reuse is enabled, thread bound string builder is
+	 * cleared and returned, otherwise new string builder is created.
+	 *
+	 * @return string builder to format entity into
+	 */
+	protected StringBuilder getBuffer() {
+		if (!reuseBuffers) {
+			return new StringBuilder(BUFFER_SIZE);
+		}
+		StringBuilder nvString = BUFFERS.get();
+		nvString.setLength(0);
+		return nvString;
+	}
+
+	/**
+	 * Makes formatted entity string from provided string builder. Thread bound string builder grown over
+	 * {@value #MAX_REUSED_BUFFER_SIZE} chars is released, to not retain memory used to format occasional huge entity.
+	 *
+	 * @param nvString
+	 *            string builder entity was formatted into
+	 * @return formatted entity string
+	 */
+	protected String toFormatted(StringBuilder nvString) {
+		String str = nvString.toString();
+		if (reuseBuffers && nvString.capacity() > MAX_REUSED_BUFFER_SIZE) {
+			BUFFERS.remove();
+		}
+		return str;
 	}
 
 	/**
 	 * Formats provided {@code value} and appends to provided string builder.
+	 * <p>
+	 * When buffers reuse is enabled, value is appended directly (boxed primitives without making value string) and
+	 * symbols defined in {@link #valueReplacements} map are replaced in place.
 	 * 
 	 * @param nvString
 	 *            string builder instance to append
@@ -200,7 +289,80 @@ public class FactNameValueFormatter extends DefaultFormatter {
 	 * @return string builder instance
 	 */
 	protected StringBuilder formatValue(StringBuilder nvString, Object value, String sep) {
-		return nvString.append(EQ).append(getValueStr(value)).append(sep);
+		if (!reuseBuffers) {
+			return nvString.append(EQ).append(getValueStr(value)).append(sep);
+		}
+
+		nvString.append(EQ);
+		int start = nvString.length();
+		appendValue(nvString, value);
+		return valueReplacer.replace(nvString, start).append(sep);
+	}
+
+	private static void appendValue(StringBuilder nvString, Object value) {
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			nvString.append(((Number) value).longValue());
+		} else if (value instanceof Double) {
+			nvString.append(((Double) value).doubleValue());
+		} else if (value instanceof Float) {
+			nvString.append(((Float) value).floatValue());
+		} else if (value instanceof Boolean) {
+			nvString.append(((Boolean) value).booleanValue());
+		} else if (value instanceof String) {
+			nvString.append((String) value);
+		} else if (value instanceof byte[]) {
+			nvString.append(Utils.base64EncodeStr((byte[]) value));
+		} else {
+			nvString.append(Utils.toString(value));
+		}
+	}
+
+	/**
+	 * Makes decorated representation of attribute key and appends it to provided string builder.
+	 * <p>
+	 * When buffers reuse is enabled, key is appended directly and symbols defined in {@link #keyReplacements} map are
+	 * replaced in place, otherwise key string is made by {@link #getKeyStr(String, String)}.
+	 *
+	 * @param nvString
+	 *            string builder instance to append
+	 * @param sName
+	 *            snapshot name
+	 * @param pKey
+	 *            property key
+	 * @return appended string builder reference
+	 */
+	protected StringBuilder appendKey(StringBuilder nvString, String sName, String pKey) {
+		return appendKey(nvString, null, sName, pKey);
+	}
+
+	/**
+	 * Appends rendered attribute key to provided string builder. If snapshot fact keys cache is provided, cached key
+	 * is appended, or key gets rendered and put into cache if it is not cached yet.
+	 *
+	 * @param nvString
+	 *            string builder instance to append
+	 * @param fKeys
+	 *            snapshot fact keys cache, or {@code null} if snapshot keys are not cached
+	 * @param sName
+	 *            snapshot name
+	 * @param pKey
+	 *            property key
+	 * @return appended string builder reference
+	 *
+	 * @see #getFactKeys(Snapshot)
+	 */
+	protected StringBuilder appendKey(StringBuilder nvString, FactKeys fKeys, String sName, String pKey) {
+		if (fKeys != null) {
+			return nvString.append(getFactKey(fKeys, sName, pKey));
+		}
+
+		if (!reuseBuffers) {
+			return nvString.append(getKeyStr(sName, pKey));
+		}
+
+		int start = nvString.length();
+		nvString.append(sName).append(PATH_DELIM).append(pKey);
+		return keyReplacer.replace(nvString, start);
 	}
 
 	/**
@@ -217,7 +379,12 @@ public class FactNameValueFormatter extends DefaultFormatter {
 		if (parent != null) {
 			toString(nvString, parent);
 		}
-		nvString.append(PATH_DELIM).append(getSourceNameStr(source.getName()));
+		nvString.append(PATH_DELIM);
+		if (reuseBuffers) {
+			int start = nvString.length();
+			return keyReplacer.replace(nvString.append(source.getName()), start);
+		}
+		nvString.append(getSourceNameStr(source.getName()));
 		return nvString;
 	}
 
@@ -230,10 +397,10 @@ public class FactNameValueFormatter extends DefaultFormatter {
 	 *            source name
 	 * @return decorated string representation of source name
 	 *
-	 * @see Utils#replace(String, Map)
+	 * @see SymbolReplacer#replace(String)
 	 */
 	protected String getSourceNameStr(String sourceName) {
-		return Utils.replace(sourceName, keyReplacements);
+		return keyReplacer.replace(sourceName);
 	}
 
 	/**
@@ -258,7 +425,8 @@ public class FactNameValueFormatter extends DefaultFormatter {
 	 */
 	protected StringBuilder toString(StringBuilder nvString, Snapshot snap) {
 		Collection<Property> list = getProperties(snap);
-		String sName = getSnapName(snap);
+		FactKeys fKeys = getFactKeys(snap);
+		String sName = getSnapName(snap, fKeys);
 		for (Property p : list) {
 			if (p.isTransient()) {
 				continue;
@@ -270,7 +438,7 @@ public class FactNameValueFormatter extends DefaultFormatter {
 			if (addAPValueTypePrefix) {
 				nvString.append(getAPValueType(value));
 			}
-			nvString.append(getKeyStr(sName, pKey));
+			appendKey(nvString, fKeys, sName, pKey);
 			formatValue(nvString, value, FIELD_SEP);
 		}
 		return nvString;
@@ -325,7 +493,7 @@ public class FactNameValueFormatter extends DefaultFormatter {
 	 * @return decorated string representation of snapshot name
 	 */
 	protected String getSnapNameStr(String snapName) {
-		return Utils.replace(snapName, keyReplacements);
+		return keyReplacer.replace(snapName);
 	}
 
 	/**
@@ -374,6 +542,108 @@ public class FactNameValueFormatter extends DefaultFormatter {
 		return (String) pSnapName.getValue();
 	}
 
+	/**
+	 * Obtain fact keys cache of provided snapshot. Fact keys are cached across sampling cycles for snapshots of MBeans
+	 * registered for sampling, having {@link MetricKeyDictionary} keys table: cache is bound to MBean keys table and
+	 * is dropped once MBean gets unregistered and table is evicted from dictionary. Caches of evicted tables are swept
+	 * once per {@value #FACT_KEYS_SWEEP_MISSES} newly made snapshot caches, so sweep cost is amortized over MBeans
+	 * registrations.
+	 *
+	 * @param snap
+	 *            snapshot instance
+	 * @return snapshot fact keys cache, or {@code null} if snapshot keys can't be cached
+	 */
+	protected FactKeys getFactKeys(Snapshot snap) {
+		if (factKeysCacheSize <= 0) {
+			return null;
+		}
+		Property pObjName = Utils.getSnapPropertyIgnoreCase(snap, Utils.OBJ_NAME_OBJ_PROP);
+		if (isEmpty(pObjName) || !(pObjName.getValue() instanceof ObjectName)) {
+			return null;
+		}
+		MetricKeyDictionary.KeyTable table = MetricKeyDictionary.getInstance().get((ObjectName) pObjName.getValue());
+		if (table == null || table.isEvicted()) {
+			return null;
+		}
+
+		FactKeys fKeys = factKeys.get(table);
+		if (fKeys == null) {
+			if (factKeysMisses.incrementAndGet() % FACT_KEYS_SWEEP_MISSES == 0) {
+				evictFactKeys();
+			}
+			fKeys = new FactKeys(getSnapName(snap));
+			FactKeys pfKeys = factKeys.putIfAbsent(table, fKeys);
+			if (pfKeys != null) {
+				fKeys = pfKeys;
+			}
+		}
+		return fKeys;
+	}
+
+	/**
+	 * Obtain rendered attribute key. If snapshot fact keys cache is provided, cached key is returned, or key gets
+	 * rendered and put into cache if it is not cached yet.
+	 *
+	 * @param fKeys
+	 *            snapshot fact keys cache, or {@code null} if snapshot keys are not cached
+	 * @param sName
+	 *            snapshot name
+	 * @param pKey
+	 *            property key
+	 * @return rendered attribute key
+	 *
+	 * @see #getKeyStr(String, String)
+	 */
+	protected String getFactKey(FactKeys fKeys, String sName, String pKey) {
+		if (fKeys == null) {
+			return getKeyStr(sName, pKey);
+		}
+
+		String fKey = fKeys.keys.get(pKey);
+		if (fKey == null) {
+			fKey = getKeyStr(sName, pKey);
+			if (factKeysCount.incrementAndGet() > factKeysCacheSize || fKeys.keys.putIfAbsent(pKey, fKey) != null) {
+				factKeysCount.decrementAndGet();
+			}
+		}
+		return fKey;
+	}
+
+	private void evictFactKeys() {
+		factKeys.entrySet().removeIf(fke -> {
+			if (fke.getKey().isEvicted()) {
+				factKeysCount.addAndGet(-fke.getValue().keys.size());
+				return true;
+			}
+			return false;
+		});
+	}
+
+	/**
+	 * Clears fact keys cache. Shall be called if formatter configuration is changed after formatting has started.
+	 */
+	protected void clearFactKeys() {
+		factKeys.clear();
+		factKeysCount.set(0);
+		factKeysMisses.set(0);
+	}
+
+	/**
+	 * Makes decorated string representation of {@link Snapshot} name, or obtains it from provided snapshot fact keys
+	 * cache.
+	 *
+	 * @param snap
+	 *            snapshot instance
+	 * @param fKeys
+	 *            snapshot fact keys cache, or {@code null} if snapshot keys are not cached
+	 * @return decorated string representation of snapshot name
+	 *
+	 * @see #getSnapName(Snapshot)
+	 */
+	protected String getSnapName(Snapshot snap, FactKeys fKeys) {
+		return fKeys == null ? getSnapName(snap) : fKeys.snapName;
+	}
+
 	private boolean isEmpty(Property p) {
 		return p == null || p.getValue() == null;
 	}
@@ -390,12 +660,12 @@ public class FactNameValueFormatter extends DefaultFormatter {
 	 * @return decorated string representation of attribute key
 	 *
 	 * @see #initDefaultKeyReplacements()
-	 * @see Utils#replace(String, Map)
+	 * @see SymbolReplacer#replace(String)
 	 */
 	protected String getKeyStr(String sName, String pKey) {
 		String keyStr = sName + PATH_DELIM + pKey;
 
-		return Utils.replace(keyStr, keyReplacements);
+		return keyReplacer.replace(keyStr);
 	}
 
 	/**
@@ -413,7 +683,7 @@ public class FactNameValueFormatter extends DefaultFormatter {
 	 * @see com.jkoolcloud.tnt4j.utils.Utils#base64EncodeStr(byte[])
 	 * @see com.jkoolcloud.tnt4j.utils.Utils#toString(Object)
 	 * @see #initDefaultValueReplacements()
-	 * @see Utils#replace(String, Map)
+	 * @see SymbolReplacer#replace(String)
 	 */
 	protected String getValueStr(Object value) {
 		String valStr;
@@ -423,7 +693,7 @@ public class FactNameValueFormatter extends DefaultFormatter {
 			valStr = Utils.toString(value);
 		}
 
-		return Utils.replace(valStr, valueReplacements);
+		return valueReplacer.replace(valStr);
 	}
 
 	@Override
@@ -447,6 +717,20 @@ public class FactNameValueFormatter extends DefaultFormatter {
 		addSelfSnapshot = com.jkoolcloud.tnt4j.utils.Utils.getBoolean("AddSelfSnapshot", settings, addSelfSnapshot);
 		addAPValueTypePrefix = com.jkoolcloud.tnt4j.utils.Utils.getBoolean("AddAPValueTypePrefix", settings,
 				addAPValueTypePrefix);
+		reuseBuffers = com.jkoolcloud.tnt4j.utils.Utils.getBoolean("ReuseBuffers", settings, reuseBuffers);
+		factKeysCacheSize = com.jkoolcloud.tnt4j.utils.Utils.getInt("FactKeysCacheSize", settings, factKeysCacheSize);
+
+		compileReplacements();
+		clearFactKeys();
+	}
+
+	/**
+	 * Compiles {@link #keyReplacements} and {@link #valueReplacements} maps into {@link #keyReplacer} and
+	 * {@link #valueReplacer}. Shall be called again if replacement maps are changed after formatter configuration.
+	 */
+	protected void compileReplacements() {
+		keyReplacer = SymbolReplacer.compile(keyReplacements);
+		valueReplacer = SymbolReplacer.compile(valueReplacements);
 	}
 
 	/**
@@ -488,4 +772,17 @@ public class FactNameValueFormatter extends DefaultFormatter {
 		valueReplacements.put("]", ")}");
 		valueReplacements.put("\"", "'");
 	}
+
+	/**
+	 * Snapshot fact keys cache: rendered snapshot name and rendered fact keys mapped by property key.
+	 */
+	protected static final class FactKeys {
+		private final String snapName;
+		private final Map<String, String> keys = new ConcurrentHashMap<>();
+		volatile PropertyOrder order;
+
+		private FactKeys(String snapName) {
+			this.snapName = snapName;
+		}
+	}
 }
@@ -46,6 +46,10 @@ public class FactPathValueFormatter extends FactNameValueFormatter {
 	 * Defines default unique property key suffix {@value}.
 	 */
 	public static final String UNIQUE_SUFFIX = "_";
+	/**
+	 * Defines default maximum number of cached object paths {@value}.
+	 */
+	public static final int DEFAULT_PATH_CACHE_SIZE = 100000;
 
 	/**
 	 * Unique property key suffix value.
@@ -55,9 +59,12 @@ public class FactPathValueFormatter extends FactNameValueFormatter {
 	 * Levels attribute matrix used to build facts object path.
 	 */
 	protected String[][] pathLevelAttrKeys = null;
+	/**
+	 * Maximum number of cached object paths, {@code 0} disables cache.
+	 */
+	protected int pathCacheSize = DEFAULT_PATH_CACHE_SIZE;
 
-	private Comparator<Snapshot> snapshotComparator;
-	private Comparator<Property> propertyComparator;
+	private Map<Object, String> pathCache = newPathCache(pathCacheSize);
 
 	/**
 	 * Constructs a new instance of {@code FactPathValueFormatter}.
@@ -66,59 +73,31 @@ public class FactPathValueFormatter extends FactNameValueFormatter {
 		super();
 	}
 
+	/**
+	 * Returns operation contained snapshots ordered by snapshot name. Snapshot names are resolved once per snapshot,
+	 * and already ordered snapshots collection is returned as is.
+	 *
+	 * @param op
+	 *            operation instance
+	 * @return collection of operation snapshots ordered by snapshot name
+	 */
 	@Override
 	protected Collection<Snapshot> getSnapshots(Operation op) {
 		Collection<Snapshot> sList = super.getSnapshots(op);
-
-		return getSortedCollection(sList, getSnapshotComparator());
-	}
-
-	private Comparator<Snapshot> getSnapshotComparator() {
-		if (snapshotComparator == null) {
-			snapshotComparator = new Comparator<>() {
-				@Override
-				public int compare(Snapshot s1, Snapshot s2) {
-					String s1Path = getSnapName(s1);
-					String s2Path = getSnapName(s2);
-
-					return s1Path.compareTo(s2Path);
-				}
-			};
+		Snapshot[] sArray = sList.toArray(new Snapshot[sList.size()]);
+		String[] sNames = new String[sArray.length];
+		for (int i = 0; i < sArray.length; i++) {
+			sNames[i] = getSnapName(sArray[i]);
 		}
-
-		return snapshotComparator;
-	}
-
-	@Override
-	protected Collection<Property> getProperties(Snapshot snap) {
-		Collection<Property> pList = super.getProperties(snap);
-
-		return getSortedCollection(pList, getPropertyComparator());
-	}
-
-	private static <T> Collection<T> getSortedCollection(Collection<T> col, Comparator<T> comp) {
-		List<T> cList;
-		if (col instanceof List<?>) {
-			cList = (List<T>) col;
-		} else {
-			cList = Collections.list(Collections.enumeration(col));
+		if (PropertyOrder.isSorted(sNames)) {
+			return sList;
 		}
-		cList.sort(comp);
-
-		return cList;
-	}
 
-	private Comparator<Property> getPropertyComparator() {
-		if (propertyComparator == null) {
-			propertyComparator = new Comparator<>() {
-				@Override
-				public int compare(Property p1, Property p2) {
-					return p1.getKey().compareTo(p2.getKey());
-				}
-			};
+		List<Snapshot> sortedList = new ArrayList<>(sArray.length);
+		for (int i : PropertyOrder.sort(sNames)) {
+			sortedList.add(sArray[i]);
 		}
-
-		return propertyComparator;
+		return sortedList;
 	}
 
 	/**
@@ -129,6 +108,9 @@ public class FactPathValueFormatter extends FactNameValueFormatter {
 	 * In case snapshot properties have same key for "branch" and "leaf" nodes at same path level, then "leaf" node
 	 * property key value is appended by configuration defined (cfg. key {@code "DuplicateKeySuffix"}, default value
 	 * {@value #UNIQUE_SUFFIX}) suffix.
+	 * <p>
+	 * Snapshot properties are ordered by property key. Properties order and unique property keys are cached across
+	 * sampling cycles for snapshots having fact keys cache, and are reused while snapshot property keys stay same.
 	 *
 	 * @param nvString
 	 *            string builder instance to append
@@ -136,36 +118,66 @@ public class FactPathValueFormatter extends FactNameValueFormatter {
 	 *            snapshot instance to represent as string
 	 * @return appended string builder reference
 	 *
-	 * @see #getUniquePropertyKey(String, com.jkoolcloud.tnt4j.core.Property[], int)
+	 * @see #getSortedUniquePropertyKey(String, com.jkoolcloud.tnt4j.core.Property[], int)
+	 * @see #getFactKeys(Snapshot)
 	 */
 	@Override
 	protected StringBuilder toString(StringBuilder nvString, Snapshot snap) {
 		Collection<Property> list = getProperties(snap);
 		Property[] pArray = list.toArray(new Property[list.size()]);
-		String sName = getSnapName(snap);
-		for (int i = 0; i < pArray.length; i++) {
+		FactKeys fKeys = getFactKeys(snap);
+		String sName = getSnapName(snap, fKeys);
+		PropertyOrder pOrder = fKeys == null ? null : fKeys.order;
+		if (pOrder == null || !pOrder.matches(pArray)) {
+			pOrder = getPropertyOrder(pArray);
+			if (fKeys != null) {
+				fKeys.order = pOrder;
+			}
+		}
+
+		for (int i : pOrder.order) {
 			Property p = pArray[i];
 			if (p.isTransient()) {
 				continue;
 			}
 
-			String pKey = getUniquePropertyKey(p.getKey(), pArray, i);
+			String pKey = pOrder.uniqueKeys[i];
 			Object value = p.getValue();
 
 			if (addAPValueTypePrefix) {
 				nvString.append(getAPValueType(value));
 			}
-			nvString.append(getKeyStr(sName, pKey));
+			appendKey(nvString, fKeys, sName, pKey);
 			formatValue(nvString, value, FIELD_SEP);
 		}
 		return nvString;
 	}
 
+	private PropertyOrder getPropertyOrder(Property[] pArray) {
+		String[] keys = new String[pArray.length];
+		for (int i = 0; i < pArray.length; i++) {
+			keys[i] = pArray[i].getKey();
+		}
+		int[] order = PropertyOrder.sort(keys);
+		Property[] sortedArray = new Property[pArray.length];
+		for (int i = 0; i < order.length; i++) {
+			sortedArray[i] = pArray[order[i]];
+		}
+		String[] uniqueKeys = new String[pArray.length];
+		for (int i = 0; i < order.length; i++) {
+			uniqueKeys[order[i]] = getSortedUniquePropertyKey(keys[order[i]], sortedArray, i);
+		}
+
+		return new PropertyOrder(keys, order, uniqueKeys);
+	}
+
 	/**
 	 * Gets property key value and makes it to be unique on same path level among all array properties.
 	 * <p>
 	 * In case of duplicate keys uniqueness is made by adding configuration defined (cfg. key
 	 * {@code "DuplicateKeySuffix"}, default value {@value #UNIQUE_SUFFIX}) suffix to property key value.
+	 * <p>
+	 * Properties array may be in any order: all properties following property index are scanned.
 	 *
 	 * @param pKey
 	 *            property key value
@@ -174,6 +186,8 @@ public class FactPathValueFormatter extends FactNameValueFormatter {
 	 * @param pIdx
 	 *            property index in array
 	 * @return unique property key value
+	 *
+	 * @see #getSortedUniquePropertyKey(String, com.jkoolcloud.tnt4j.core.Property[], int)
 	 */
 	protected String getUniquePropertyKey(String pKey, Property[] pArray, int pIdx) {
 		String ppKey;
@@ -188,6 +202,51 @@ public class FactPathValueFormatter extends FactNameValueFormatter {
 		return pKey;
 	}
 
+	/**
+	 * Gets property key value and makes it to be unique on same path level among all array properties, same way as
+	 * {@link #getUniquePropertyKey(String, com.jkoolcloud.tnt4j.core.Property[], int)} does.
+	 * <p>
+	 * Properties array must be ordered by property key: properties having property key path prefix are looked up using
+	 * binary search.
+	 *
+	 * @param pKey
+	 *            property key value
+	 * @param pArray
+	 *            properties array ordered by property key
+	 * @param pIdx
+	 *            property index in array
+	 * @return unique property key value
+	 */
+	protected String getSortedUniquePropertyKey(String pKey, Property[] pArray, int pIdx) {
+		int from = pIdx + 1;
+		while (from < pArray.length) {
+			String pathPrefix = pKey + PATH_DELIM;
+			int idx = lowerBound(pArray, from, pathPrefix);
+			if (idx >= pArray.length || !pArray[idx].getKey().startsWith(pathPrefix)) {
+				break;
+			}
+
+			pKey += uniqueSuffix;
+			from = idx + 1;
+		}
+
+		return pKey;
+	}
+
+	private static int lowerBound(Property[] pArray, int from, String key) {
+		int lo = from;
+		int hi = pArray.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (pArray[mid].getKey().compareTo(key) < 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
 	@Override
 	protected String getSnapNameStr(String objCanonName) {
 		if (StringUtils.isEmpty(objCanonName)) {
@@ -200,10 +259,16 @@ public class FactPathValueFormatter extends FactNameValueFormatter {
 			return objCanonName;
 		}
 
-		Properties objNameProps = new Properties();
-		loadProps(objNameProps, objCanonName, ddIdx);
+		String path = pathCache.get(objCanonName);
+		if (path == null) {
+			Properties objNameProps = new Properties();
+			loadProps(objNameProps, objCanonName, ddIdx);
 
-		return getObjNameStr(objNameProps);
+			path = getObjNameStr(objNameProps);
+			pathCache.put(objCanonName, path);
+		}
+
+		return path;
 	}
 
 	@Override
@@ -212,9 +277,34 @@ public class FactPathValueFormatter extends FactNameValueFormatter {
 			return "null";
 		}
 
-		Map<String, String> objNameProps = getKeyPropertyList(objName);
+		String path = pathCache.get(objName);
+		if (path == null) {
+			Map<String, String> objNameProps = getKeyPropertyList(objName);
+
+			path = getObjNameStr(objNameProps);
+			pathCache.put(objName, path);
+		}
 
-		return getObjNameStr(objNameProps);
+		return path;
+	}
+
+	/**
+	 * Clears cached object paths. Shall be called if path building configuration (e.g. {@link #pathLevelAttrKeys}) is
+	 * changed after formatting has started.
+	 */
+	protected void clearPathCache() {
+		pathCache = newPathCache(pathCacheSize);
+	}
+
+	private static Map<Object, String> newPathCache(int maxSize) {
+		return Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Object, String> eldest) {
+				return size() > Math.max(0, maxSize);
+			}
+		});
 	}
 
 	/**
@@ -324,6 +414,9 @@ public class FactPathValueFormatter extends FactNameValueFormatter {
 		if (StringUtils.isNotEmpty(pValue)) {
 			initPathLevelAttrKeys(pValue);
 		}
+
+		pathCacheSize = Utils.getInt("PathCacheSize", settings, pathCacheSize);
+		clearPathCache();
 	}
 
 	private void initPathLevelAttrKeys(String levelsStr) {
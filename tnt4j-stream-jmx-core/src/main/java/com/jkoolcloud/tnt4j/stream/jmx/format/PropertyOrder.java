@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import java.util.Arrays;
+
+import com.jkoolcloud.tnt4j.core.Property;
+
+/**
+ * <p>
+ * This class defines snapshot properties layout formatting order: properties order by property key and unique property
+ * keys, bound to snapshot property keys sequence. Sampled MBean snapshots have same property keys sequence every
+ * sampling cycle, so once made, formatting order is reused while snapshot property keys stay same.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ *
+ * @see FactPathValueFormatter
+ */
+final class PropertyOrder {
+	private final String[] keys;
+	/**
+	 * Property indices ordered by property key.
+	 */
+	final int[] order;
+	/**
+	 * Unique property keys, indexed same as snapshot properties.
+	 */
+	final String[] uniqueKeys;
+
+	/**
+	 * Constructs a new instance of {@code PropertyOrder}.
+	 *
+	 * @param keys
+	 *            snapshot property keys sequence
+	 * @param order
+	 *            property indices ordered by property key
+	 * @param uniqueKeys
+	 *            unique property keys
+	 */
+	PropertyOrder(String[] keys, int[] order, String[] uniqueKeys) {
+		this.keys = keys;
+		this.order = order;
+		this.uniqueKeys = uniqueKeys;
+	}
+
+	/**
+	 * Checks whether provided snapshot properties have same property keys sequence as this layout.
+	 *
+	 * @param pArray
+	 *            snapshot properties array
+	 * @return {@code true} if properties keys sequence matches this layout, {@code false} - otherwise
+	 */
+	boolean matches(Property[] pArray) {
+		if (pArray.length != keys.length) {
+			return false;
+		}
+		for (int i = 0; i < pArray.length; i++) {
+			String pKey = pArray[i].getKey();
+			if (pKey != keys[i] && !pKey.equals(keys[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether provided strings array is ordered.
+	 *
+	 * @param strings
+	 *            strings array
+	 * @return {@code true} if array is ordered, {@code false} - otherwise
+	 */
+	static boolean isSorted(String[] strings) {
+		for (int i = 1; i < strings.length; i++) {
+			if (strings[i - 1].compareTo(strings[i]) > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Makes stable order of provided strings array.
+	 *
+	 * @param strings
+	 *            strings array
+	 * @return array indices ordered by string value
+	 */
+	static int[] sort(String[] strings) {
+		Integer[] idx = new Integer[strings.length];
+		for (int i = 0; i < idx.length; i++) {
+			idx[i] = i;
+		}
+		Arrays.sort(idx, (i1, i2) -> strings[i1].compareTo(strings[i2]));
+
+		int[] order = new int[idx.length];
+		for (int i = 0; i < idx.length; i++) {
+			order[i] = idx[i];
+		}
+		return order;
+	}
+}
@@ -20,8 +20,6 @@ import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 
-import com.jkoolcloud.tnt4j.utils.Utils;
-
 /**
  * Custom fact path value formatter (Single Level Item) implementation used for an IBM WebSphere Application Server and
  * Liberty JMX sampling. It uses first available level attribute and skips all rest.
@@ -52,7 +50,7 @@ public class SLIFactPathValueFormatter extends FactPathValueFormatter {
 			for (String pKey : levelAttrKeys) {
 				pv = (String) objNameProps.remove(pKey);
 				if (!appended && StringUtils.isNotEmpty(pv) && !"null".equals(pv)) {
-					pv = Utils.replace(pv, keyReplacements);
+					pv = keyReplacer.replace(pv);
 					if (pv.startsWith(PATH_DELIM)) {
 						pv = pv.substring(1);
 					}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import java.util.*;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * <p>
+ * This class defines compiled symbol replacements mapping, applying all mapping rules in a single string scan instead
+ * of making one string scan and copy per rule.
+ * </p>
+ * <p>
+ * Replacement rules are compiled into stages. Rules having no common symbols, and where rule replacement symbols are not
+ * matched by any later rule of same stage, are grouped into single stage: rules of such stage never interfere, so
+ * applying them all at once produces same result as applying them one after another. Rule matching later rules output
+ * (e.g. {@code "\\\\"} rule after {@code "="->"\\"} rule) starts new stage, so result is always same as
+ * {@link com.jkoolcloud.tnt4j.utils.Utils#replace(String, Map)} applying rules one after another in mapping order.
+ * </p>
+ * <p>
+ * Every stage is a lookup table indexed by rule first symbol, so string symbol is matched against single candidate
+ * rule.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+public final class SymbolReplacer {
+	private static final int TABLE_SIZE = 128;
+
+	/**
+	 * Symbol replacer having no replacement rules.
+	 */
+	public static final SymbolReplacer NONE = new SymbolReplacer(new Stage[0]);
+
+	private final Stage[] stages;
+
+	private SymbolReplacer(Stage[] stages) {
+		this.stages = stages;
+	}
+
+	/**
+	 * Compiles provided symbol replacements mapping. Rules having empty symbol are ignored.
+	 *
+	 * @param replacements
+	 *            symbol replacements mapping
+	 * @return compiled symbol replacer
+	 */
+	public static SymbolReplacer compile(Map<String, String> replacements) {
+		if (replacements == null || replacements.isEmpty()) {
+			return NONE;
+		}
+
+		List<Stage> stages = new ArrayList<>();
+		Stage stage = null;
+		for (Map.Entry<String, String> re : replacements.entrySet()) {
+			if (StringUtils.isEmpty(re.getKey())) {
+				continue;
+			}
+			Rule rule = new Rule(re.getKey(), StringUtils.defaultString(re.getValue()));
+			if (stage == null || !stage.accepts(rule)) {
+				stage = new Stage();
+				stages.add(stage);
+			}
+			stage.add(rule);
+		}
+
+		return stages.isEmpty() ? NONE : new SymbolReplacer(stages.toArray(new Stage[0]));
+	}
+
+	/**
+	 * Checks whether this replacer has any replacement rules.
+	 *
+	 * @return {@code true} if replacer has no replacement rules, {@code false} - otherwise
+	 */
+	public boolean isEmpty() {
+		return stages.length == 0;
+	}
+
+	/**
+	 * Replaces symbols in provided string.
+	 *
+	 * @param str
+	 *            string to replace symbols
+	 * @return string having symbols replaced, or same string instance if it has no symbols to replace
+	 */
+	public String replace(String str) {
+		if (StringUtils.isEmpty(str)) {
+			return str;
+		}
+		for (Stage stage : stages) {
+			str = stage.replace(str);
+		}
+		return str;
+	}
+
+	/**
+	 * Replaces symbols in provided string builder tail, starting at provided index, in place.
+	 *
+	 * @param sb
+	 *            string builder instance
+	 * @param start
+	 *            index of string builder tail to replace symbols
+	 * @return string builder instance
+	 */
+	public StringBuilder replace(StringBuilder sb, int start) {
+		for (Stage stage : stages) {
+			stage.replace(sb, start);
+		}
+		return sb;
+	}
+
+	private static class Rule {
+		private final String from;
+		private final String to;
+
+		private Rule(String from, String to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		private boolean matches(CharSequence str, int idx) {
+			int len = from.length();
+			if (len == 1) {
+				return true;
+			}
+			if (idx + len > str.length()) {
+				return false;
+			}
+			for (int i = 1; i < len; i++) {
+				if (str.charAt(idx + i) != from.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static class Stage {
+		private final Rule[] table = new Rule[TABLE_SIZE];
+		private Map<Character, Rule> others;
+
+		private final Set<Character> fromSymbols = new HashSet<>();
+		private final Set<Character> toSymbols = new HashSet<>();
+		private boolean removing = false;
+
+		private boolean accepts(Rule rule) {
+			if (removing && rule.from.length() > 1) {
+				return false;
+			}
+			for (int i = 0; i < rule.from.length(); i++) {
+				char c = rule.from.charAt(i);
+				if (fromSymbols.contains(c) || toSymbols.contains(c)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void add(Rule rule) {
+			char c = rule.from.charAt(0);
+			if (c < TABLE_SIZE) {
+				table[c] = rule;
+			} else {
+				if (others == null) {
+					others = new HashMap<>();
+				}
+				others.put(c, rule);
+			}
+			for (int i = 0; i < rule.from.length(); i++) {
+				fromSymbols.add(rule.from.charAt(i));
+			}
+			for (int i = 0; i < rule.to.length(); i++) {
+				toSymbols.add(rule.to.charAt(i));
+			}
+			removing |= rule.to.isEmpty();
+		}
+
+		private Rule match(CharSequence str, int idx) {
+			char c = str.charAt(idx);
+			Rule rule = c < TABLE_SIZE ? table[c] : others == null ? null : others.get(c);
+			return rule != null && rule.matches(str, idx) ? rule : null;
+		}
+
+		private String replace(String str) {
+			int len = str.length();
+			int idx = 0;
+			Rule rule = null;
+			for (; idx < len; idx++) {
+				rule = match(str, idx);
+				if (rule != null) {
+					break;
+				}
+			}
+			if (rule == null) {
+				return str;
+			}
+
+			StringBuilder sb = new StringBuilder(len + 16);
+			sb.append(str, 0, idx);
+			while (idx < len) {
+				rule = match(str, idx);
+				if (rule == null) {
+					sb.append(str.charAt(idx++));
+				} else {
+					sb.append(rule.to);
+					idx += rule.from.length();
+				}
+			}
+			return sb.toString();
+		}
+
+		private void replace(StringBuilder sb, int start) {
+			int idx = start;
+			while (idx < sb.length()) {
+				Rule rule = match(sb, idx);
+				if (rule == null) {
+					idx++;
+				} else {
+					sb.replace(idx, idx + rule.from.length(), rule.to);
+					idx += rule.to.length();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * This class defines adaptive MBean sampling frequency tracker. Every MBean starts being sampled on every sampling
+ * cycle. Each time sampled MBean attribute values are found unchanged since last sample, MBean sampling interval (in
+ * sampling cycles) is doubled, up to configured maximum interval. As soon as MBean attribute values change, MBean
+ * sampling interval is reset back to every cycle.
+ * </p>
+ * <p>
+ * Previous MBean sample attribute values are kept to compare values deeply, so array values are compared by content.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+final class AdaptiveFrequency {
+	private final int maxInterval;
+	private final Map<ObjectName, State> states = new ConcurrentHashMap<>(89);
+
+	/**
+	 * Create adaptive sampling frequency tracker.
+	 *
+	 * @param maxInterval
+	 *            maximum MBean sampling interval in sampling cycles
+	 */
+	AdaptiveFrequency(int maxInterval) {
+		this.maxInterval = maxInterval;
+	}
+
+	/**
+	 * Checks whether provided MBean sampling shall be skipped in provided sampling cycle.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @param cycle
+	 *            sampling cycle number
+	 * @return {@code true} if MBean is not due to be sampled in provided cycle, {@code false} - otherwise
+	 */
+	boolean isSkipped(ObjectName name, long cycle) {
+		State state = states.get(name);
+		return state != null && cycle < state.nextDue;
+	}
+
+	/**
+	 * Updates MBean sampling interval by comparing sampled MBean attribute values with previous MBean sample values.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @param cycle
+	 *            sampling cycle number
+	 * @param values
+	 *            sampled MBean attribute values
+	 */
+	void update(ObjectName name, long cycle, AttributeList values) {
+		Object[] vArray = toArray(values);
+		State state = states.get(name);
+		if (state == null) {
+			states.put(name, new State(vArray, cycle));
+		} else if (Arrays.deepEquals(state.values, vArray)) {
+			state.interval = Math.min(maxInterval, state.interval * 2);
+			state.nextDue = cycle + state.interval;
+		} else {
+			state.values = vArray;
+			state.interval = 1;
+			state.nextDue = cycle + 1;
+		}
+	}
+
+	/**
+	 * Converts sampled MBean attributes list into array of attribute name and value pairs.
+	 *
+	 * @param values
+	 *            sampled MBean attribute values
+	 * @return array of attribute names and values
+	 */
+	private static Object[] toArray(AttributeList values) {
+		List<Attribute> aList = values.asList();
+		Object[] vArray = new Object[aList.size() * 2];
+		int i = 0;
+		for (Attribute attr : aList) {
+			vArray[i++] = attr.getName();
+			vArray[i++] = attr.getValue();
+		}
+		return vArray;
+	}
+
+	/**
+	 * Removes provided MBean sampling frequency state.
+	 *
+	 * @param name
+	 *            MBean object name
+	 */
+	void remove(ObjectName name) {
+		states.remove(name);
+	}
+
+	/**
+	 * Removes all MBeans sampling frequency states.
+	 */
+	void clear() {
+		states.clear();
+	}
+
+	/**
+	 * Obtain number of MBeans sampled at lower than every cycle rate.
+	 *
+	 * @return number of MBeans sampled at lower rate
+	 */
+	int getBackedOffCount() {
+		int count = 0;
+		for (State state : states.values()) {
+			if (state.interval > 1) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static class State {
+		private Object[] values;
+		private int interval = 1;
+		private long nextDue;
+
+		private State(Object[] values, long cycle) {
+			this.values = values;
+			this.nextDue = cycle + 1;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.lang.reflect.Array;
+
+import com.jkoolcloud.tnt4j.core.Property;
+import com.jkoolcloud.tnt4j.core.Snapshot;
+
+/**
+ * <p>
+ * This class defines byte budgeted sampled snapshots batching. Every sampled MBean snapshot payload size is estimated
+ * in bytes, and batch is complete once estimated batch payload size reaches target batch size. Batch is posted before
+ * snapshot which would make it exceed target batch size gets added, so posted batches stay within target batch size,
+ * unless single snapshot is larger than target batch size.
+ * </p>
+ * <p>
+ * When auto-tuning is enabled, target batch size is tuned between {@value #MIN_TARGET_DIVISOR}-th part of configured
+ * batch size and configured batch size (which remains the upper bound, e.g. sink message size limit), using observed
+ * posting throughput: posting time and payload size is accumulated over a window of {@value #TUNE_WINDOW} posted
+ * batches, and target size keeps moving in the same direction while throughput improves and changes direction when
+ * throughput drops.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+final class BatchSizer {
+	private static final int PROPERTY_OVERHEAD = 8;
+	private static final int SNAPSHOT_OVERHEAD = 64;
+	private static final int NUMBER_SIZE = 12;
+	private static final int OBJECT_SIZE = 16;
+
+	private static final int MIN_TARGET_DIVISOR = 16;
+	private static final int TUNE_WINDOW = 4;
+	private static final double TUNE_STEP = 1.25;
+
+	private final long maxBytes;
+	private final long minBytes;
+	private final boolean autoTune;
+	private volatile long targetBytes;
+
+	private int windowPosts = 0;
+	private long windowBytes = 0;
+	private long windowNanos = 0;
+	private double lastThroughput = 0;
+	private boolean growing = false;
+
+	/**
+	 * Create byte budgeted batching instance.
+	 *
+	 * @param maxBytes
+	 *            configured target batch payload size in bytes
+	 * @param autoTune
+	 *            flag indicating whether to tune target batch size by observed posting throughput
+	 */
+	BatchSizer(long maxBytes, boolean autoTune) {
+		this.maxBytes = maxBytes;
+		this.minBytes = Math.max(1, maxBytes / MIN_TARGET_DIVISOR);
+		this.autoTune = autoTune;
+		this.targetBytes = maxBytes;
+	}
+
+	/**
+	 * Obtain current target batch payload size.
+	 *
+	 * @return target batch payload size in bytes
+	 */
+	long getTargetBytes() {
+		return targetBytes;
+	}
+
+	/**
+	 * Checks whether batch having provided estimated payload size is complete.
+	 *
+	 * @param batchBytes
+	 *            estimated batch payload size in bytes
+	 * @return {@code true} if batch is complete and shall be posted, {@code false} - otherwise
+	 */
+	boolean isFull(long batchBytes) {
+		return batchBytes >= targetBytes;
+	}
+
+	/**
+	 * Checks whether batch having provided estimated payload size exceeds target batch size.
+	 *
+	 * @param batchBytes
+	 *            estimated batch payload size in bytes
+	 * @return {@code true} if batch is larger than target batch size, {@code false} - otherwise
+	 */
+	boolean isExceeded(long batchBytes) {
+		return batchBytes > targetBytes;
+	}
+
+	/**
+	 * Records posted batch payload size and posting time, and tunes target batch size if auto-tuning is enabled.
+	 *
+	 * @param batchBytes
+	 *            estimated posted batch payload size in bytes
+	 * @param postNanos
+	 *            batch posting time in nanoseconds
+	 */
+	synchronized void posted(long batchBytes, long postNanos) {
+		if (!autoTune) {
+			return;
+		}
+
+		windowPosts++;
+		windowBytes += batchBytes;
+		windowNanos += Math.max(1, postNanos);
+		if (windowPosts < TUNE_WINDOW) {
+			return;
+		}
+
+		double throughput = (double) windowBytes / windowNanos;
+		if (throughput < lastThroughput) {
+			growing = !growing;
+		}
+		lastThroughput = throughput;
+		long target = (long) (growing ? targetBytes * TUNE_STEP : targetBytes / TUNE_STEP);
+		targetBytes = Math.max(minBytes, Math.min(maxBytes, target));
+
+		windowPosts = 0;
+		windowBytes = 0;
+		windowNanos = 0;
+	}
+
+	/**
+	 * Estimates serialized payload size of provided snapshot. Fact formatters render every property key prefixed by
+	 * snapshot path, so snapshot name and category length is counted for every snapshot property.
+	 *
+	 * @param snapshot
+	 *            snapshot to estimate
+	 * @return estimated snapshot payload size in bytes
+	 */
+	static long estimate(Snapshot snapshot) {
+		long pathSize = length(snapshot.getName()) + length(snapshot.getCategory()) + 2;
+		long size = SNAPSHOT_OVERHEAD + pathSize;
+		for (Property prop : snapshot.getProperties()) {
+			size += PROPERTY_OVERHEAD + pathSize + length(prop.getKey()) + estimate(prop.getValue());
+		}
+		return size;
+	}
+
+	private static long estimate(Object value) {
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof Number || value instanceof Boolean) {
+			return NUMBER_SIZE;
+		}
+		if (value instanceof CharSequence) {
+			return ((CharSequence) value).length();
+		}
+		if (value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			return length == 0 ? 2 : length * (estimate(Array.get(value, 0)) + 1);
+		}
+		return OBJECT_SIZE;
+	}
+
+	private static int length(String str) {
+		return str == null ? 0 : str.length();
+	}
+}
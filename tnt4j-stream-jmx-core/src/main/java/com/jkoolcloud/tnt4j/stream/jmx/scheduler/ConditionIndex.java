@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import javax.management.ObjectName;
+
+import com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeAction;
+import com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeCondition;
+
+/**
+ * <p>
+ * This class defines immutable index of registered attribute conditions. Conditions bound to exact MBean object name
+ * are indexed by that name, while conditions bound to object name pattern or applicable to any MBean are kept in
+ * separate bucket, checked for every sampled MBean. Conditions registration order is preserved when evaluating
+ * conditions for a particular MBean.
+ * </p>
+ *
+ * @see AttributeCondition#getObjectName()
+ * @version $Revision: 1 $
+ */
+final class ConditionIndex {
+	static final ConditionIndex EMPTY = new ConditionIndex(Collections.emptyMap());
+
+	private static final Entry[] NO_ENTRIES = new Entry[0];
+
+	private final Map<ObjectName, Entry[]> exact;
+	private final Entry[] patterns;
+
+	/**
+	 * Create a conditions index from provided conditions map.
+	 *
+	 * @param conditions
+	 *            registration ordered map of conditions and bound actions
+	 */
+	ConditionIndex(Map<AttributeCondition, AttributeAction> conditions) {
+		Map<ObjectName, List<Entry>> exactLists = new HashMap<>(conditions.size());
+		List<Entry> patternList = new ArrayList<>();
+		int seq = 0;
+		for (Map.Entry<AttributeCondition, AttributeAction> ce : conditions.entrySet()) {
+			Entry entry = new Entry(seq++, ce.getKey(), ce.getValue());
+			if (entry.oName == null || entry.oName.isPattern()) {
+				patternList.add(entry);
+			} else {
+				exactLists.computeIfAbsent(entry.oName, k -> new ArrayList<>(2)).add(entry);
+			}
+		}
+
+		exact = new HashMap<>(exactLists.size());
+		for (Map.Entry<ObjectName, List<Entry>> ee : exactLists.entrySet()) {
+			exact.put(ee.getKey(), ee.getValue().toArray(NO_ENTRIES));
+		}
+		patterns = patternList.toArray(NO_ENTRIES);
+	}
+
+	/**
+	 * Runs provided consumer for every condition applicable to provided MBean, preserving conditions registration
+	 * order.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @param consumer
+	 *            applicable condition entry consumer
+	 */
+	void forEach(ObjectName name, Consumer<Entry> consumer) {
+		Entry[] exactEntries = exact.getOrDefault(name, NO_ENTRIES);
+		int i = 0, j = 0;
+		while (i < exactEntries.length || j < patterns.length) {
+			if (j >= patterns.length || (i < exactEntries.length && exactEntries[i].seq < patterns[j].seq)) {
+				consumer.accept(exactEntries[i++]);
+			} else {
+				Entry pEntry = patterns[j++];
+				if (pEntry.appliesTo(name)) {
+					consumer.accept(pEntry);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks whether there are no conditions indexed.
+	 *
+	 * @return {@code true} if index has no conditions, {@code false} - otherwise
+	 */
+	boolean isEmpty() {
+		return exact.isEmpty() && patterns.length == 0;
+	}
+
+	/**
+	 * Indexed condition entry binding condition and action.
+	 */
+	static final class Entry {
+		private final int seq;
+		private final ObjectName oName;
+		final AttributeCondition condition;
+		final AttributeAction action;
+
+		private Entry(int seq, AttributeCondition condition, AttributeAction action) {
+			this.seq = seq;
+			this.oName = condition.getObjectName();
+			this.condition = condition;
+			this.action = action;
+		}
+
+		private boolean appliesTo(ObjectName name) {
+			return oName == null || oName.apply(name);
+		}
+	}
+}
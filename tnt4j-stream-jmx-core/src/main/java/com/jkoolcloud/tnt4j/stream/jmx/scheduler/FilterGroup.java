@@ -0,0 +1,302 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import javax.management.ObjectName;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.jkoolcloud.tnt4j.core.OpLevel;
+import com.jkoolcloud.tnt4j.sink.EventSink;
+import com.jkoolcloud.tnt4j.stream.jmx.utils.LoggerUtils;
+
+/**
+ * <p>
+ * This class defines MBeans filter group: set of include/exclude MBean filters sampled with group specific sampling
+ * period. Multiple filter groups can be defined for single JMX connection, sharing same connection, MBeans metadata and
+ * scheduler. Scheduler then ticks at greatest common divisor of all group periods, and every group MBeans are sampled
+ * only on ticks matching group period.
+ * </p>
+ * <p>
+ * Filter groups definition string format is {@code include-filter[#exclude-filter]@period[|...]}, e.g.
+ * {@code java.lang:type=Memory,*@1000|kafka.log:*@300000}. Include and exclude filters are semicolon separated lists of
+ * MBean object name patterns. Period is defined in sampler time units. Group having no period defined uses sampler
+ * sampling period.
+ * </p>
+ * <p>
+ * Group periods are rounded to the closest multiple of minimal tick period (see
+ * {@link #getMinTickPeriod(long, long)}), so groups having coprime periods can't make scheduler tick every single
+ * time unit.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+public class FilterGroup {
+	private static final EventSink LOGGER = LoggerUtils.getLoggerSink(FilterGroup.class);
+
+	/**
+	 * Minimal scheduler tick period in sampler time units, used when filter groups are defined.
+	 */
+	public static final long MIN_TICK_PERIOD = 1000;
+	/**
+	 * Filter groups delimiter.
+	 */
+	public static final String GROUPS_DELIM = "|";
+	/**
+	 * Group period delimiter.
+	 */
+	public static final String PERIOD_DELIM = "@";
+	/**
+	 * Group exclude filter delimiter.
+	 */
+	public static final String EXCLUDE_DELIM = "#";
+
+	private final String incFilter;
+	private final String excFilter;
+	private final long period;
+
+	final List<ObjectName> iFilters = new ArrayList<>(5);
+	final List<ObjectName> eFilters = new ArrayList<>(5);
+	int interval = 1;
+
+	/**
+	 * Create a filter group.
+	 *
+	 * @param incFilter
+	 *            included MBeans filter string
+	 * @param excFilter
+	 *            excluded MBeans filter string
+	 * @param period
+	 *            group sampling period
+	 */
+	public FilterGroup(String incFilter, String excFilter, long period) {
+		this.incFilter = incFilter;
+		this.excFilter = excFilter;
+		this.period = period;
+	}
+
+	/**
+	 * Returns group included MBeans filter string.
+	 *
+	 * @return included MBeans filter string
+	 */
+	public String getIncludeFilter() {
+		return incFilter;
+	}
+
+	/**
+	 * Returns group excluded MBeans filter string.
+	 *
+	 * @return excluded MBeans filter string
+	 */
+	public String getExcludeFilter() {
+		return excFilter;
+	}
+
+	/**
+	 * Returns group sampling period.
+	 *
+	 * @return group sampling period
+	 */
+	public long getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Checks whether provided MBean is included by this group filters.
+	 *
+	 * @param oName
+	 *            MBean object name
+	 * @return {@code true} if MBean is included by group, {@code false} - otherwise
+	 */
+	boolean isIncluded(ObjectName oName) {
+		for (ObjectName eFilter : eFilters) {
+			if (eFilter.apply(oName)) {
+				return false;
+			}
+		}
+		for (ObjectName iFilter : iFilters) {
+			if (iFilter.apply(oName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return incFilter + (StringUtils.isEmpty(excFilter) ? "" : EXCLUDE_DELIM + excFilter) + PERIOD_DELIM + period;
+	}
+
+	/**
+	 * Parses filter groups definition string. Group periods are rounded to the closest multiple of minimal tick
+	 * period for provided sampling period.
+	 *
+	 * @param groupsDef
+	 *            filter groups definition string
+	 * @param defaultPeriod
+	 *            sampling period to use for groups having no period defined
+	 * @return list of filter groups, empty list if definition string is empty
+	 * @throws IllegalArgumentException
+	 *             if group defined period is not a number
+	 *
+	 * @see #parse(String, long, long)
+	 */
+	public static List<FilterGroup> parse(String groupsDef, long defaultPeriod) {
+		return parse(groupsDef, defaultPeriod, getMinTickPeriod(defaultPeriod, 0));
+	}
+
+	/**
+	 * Parses filter groups definition string. Group periods are rounded to the closest multiple of provided minimal
+	 * tick period.
+	 *
+	 * @param groupsDef
+	 *            filter groups definition string
+	 * @param defaultPeriod
+	 *            sampling period to use for groups having no period defined
+	 * @param minTick
+	 *            minimal scheduler tick period
+	 * @return list of filter groups, empty list if definition string is empty
+	 * @throws IllegalArgumentException
+	 *             if group defined period is not a number
+	 *
+	 * @see #getMinTickPeriod(long, long)
+	 */
+	public static List<FilterGroup> parse(String groupsDef, long defaultPeriod, long minTick) {
+		if (StringUtils.isBlank(groupsDef)) {
+			return Collections.emptyList();
+		}
+
+		List<FilterGroup> groups = new ArrayList<>(5);
+		StringTokenizer gtk = new StringTokenizer(groupsDef, GROUPS_DELIM);
+		while (gtk.hasMoreTokens()) {
+			String groupDef = gtk.nextToken().trim();
+			if (groupDef.isEmpty()) {
+				continue;
+			}
+
+			long period = defaultPeriod;
+			int pIdx = groupDef.lastIndexOf(PERIOD_DELIM);
+			if (pIdx >= 0) {
+				String periodStr = groupDef.substring(pIdx + 1).trim();
+				try {
+					period = Long.parseLong(periodStr);
+				} catch (NumberFormatException exc) {
+					throw new IllegalArgumentException(
+							"Invalid filter group period '" + periodStr + "' for group '" + groupDef + "'", exc);
+				}
+				groupDef = groupDef.substring(0, pIdx);
+			}
+
+			String excFilter = null;
+			int eIdx = groupDef.indexOf(EXCLUDE_DELIM);
+			if (eIdx >= 0) {
+				excFilter = groupDef.substring(eIdx + 1).trim();
+				groupDef = groupDef.substring(0, eIdx);
+			}
+
+			groups.add(new FilterGroup(groupDef.trim(), excFilter,
+					roundPeriod(groupDef, period > 0 ? period : defaultPeriod, minTick)));
+		}
+
+		return groups;
+	}
+
+	/**
+	 * Rounds group period to the closest (but not smaller than one) multiple of minimal tick period.
+	 *
+	 * @param groupDef
+	 *            group definition string
+	 * @param period
+	 *            group period
+	 * @param minTick
+	 *            minimal scheduler tick period
+	 * @return rounded group period
+	 */
+	private static long roundPeriod(String groupDef, long period, long minTick) {
+		if (minTick <= 1) {
+			return period;
+		}
+		long rounded = Math.max(1, (period + minTick / 2) / minTick) * minTick;
+		if (rounded != period) {
+			LOGGER.log(OpLevel.WARNING,
+					"Filter group period is not a multiple of minimal tick period: group={0}, period={1}, min.tick={2}, rounded.period={3}",
+					groupDef, period, minTick, rounded);
+		}
+		return rounded;
+	}
+
+	/**
+	 * Determines minimal scheduler tick period filter group periods are rounded to. In rollup mode it is effective
+	 * rollup (inner) period, so scheduler ticks every inner period. Otherwise it is {@value #MIN_TICK_PERIOD}, unless
+	 * sampling period is shorter.
+	 *
+	 * @param samplingPeriod
+	 *            sampler sampling period
+	 * @param innerPeriod
+	 *            effective rollup (inner) period, {@code 0} if rollup mode is disabled
+	 * @return minimal scheduler tick period
+	 *
+	 * @see RollupBuffers#getInnerPeriod(long, long)
+	 */
+	public static long getMinTickPeriod(long samplingPeriod, long innerPeriod) {
+		if (innerPeriod > 0) {
+			return innerPeriod;
+		}
+		return Math.max(1, Math.min(MIN_TICK_PERIOD, samplingPeriod));
+	}
+
+	/**
+	 * Calculates scheduler tick period for provided filter groups: greatest common divisor of all groups periods.
+	 * Since group periods are multiples of minimal tick period, tick period is never shorter than minimal tick period.
+	 *
+	 * @param groups
+	 *            list of filter groups
+	 * @param defaultPeriod
+	 *            sampling period to use when there are no filter groups defined
+	 * @return scheduler tick period
+	 */
+	public static long getTickPeriod(List<FilterGroup> groups, long defaultPeriod) {
+		long tick = 0;
+		for (FilterGroup group : groups) {
+			tick = gcd(tick, group.period);
+		}
+		return tick > 0 ? tick : defaultPeriod;
+	}
+
+	/**
+	 * Calculates greatest common divisor of provided numbers.
+	 *
+	 * @param a
+	 *            first number
+	 * @param b
+	 *            second number
+	 * @return greatest common divisor of provided numbers
+	 */
+	static long gcd(long a, long b) {
+		while (b != 0) {
+			long t = b;
+			b = a % b;
+			a = t;
+		}
+		return a;
+	}
+}
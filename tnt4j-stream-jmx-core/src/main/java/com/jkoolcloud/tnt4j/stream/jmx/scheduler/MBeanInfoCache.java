@@ -0,0 +1,314 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+
+import com.jkoolcloud.tnt4j.core.OpLevel;
+import com.jkoolcloud.tnt4j.sink.EventSink;
+import com.jkoolcloud.tnt4j.stream.jmx.utils.LoggerUtils;
+
+/**
+ * <p>
+ * This class defines persistent on-disk MBeans metadata cache, used to avoid fetching {@link MBeanInfo} of every
+ * sampled MBean from remote MBean server on agent restart or reconnect. Cache keeps only MBean class name, description
+ * and attributes metadata (name, type, description and access flags), keyed by JMX server key (JMX service URL, which
+ * stays same over JMX server restarts) and MBean object name.
+ * </p>
+ * <p>
+ * Cache file is read into heap buffer on first use, when strings table is decoded and entries index is built. File is
+ * not kept open nor memory mapped, so it can be replaced by {@link #store(String, Map)} on any platform. MBean
+ * attributes metadata is decoded from that buffer lazily, when cache entry is requested. Cache entry is valid only
+ * while MBean class name reported by MBean server matches cached one. Cache file contents for particular JMX server
+ * are replaced by {@link #store(String, Map)}, while contents of JMX servers not stored for {@value #MAX_AGE_DAYS}
+ * days are dropped.
+ * </p>
+ * <p>
+ * File format: magic, version, strings table (count and length prefixed UTF-8 strings) and server sections (count and
+ * sections). Every section is made of server key string index, section store time, entries count and entries. Every
+ * entry is made of object name, class name and description string indices, attributes count and for every attribute -
+ * name, type and description string indices and access flags byte. String index {@value #NULL_IDX} stands for
+ * {@code null} string.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+final class MBeanInfoCache {
+	private static final EventSink LOGGER = LoggerUtils.getLoggerSink(MBeanInfoCache.class);
+
+	private static final int MAGIC = 0x534A4D43; // SJMC
+	private static final int VERSION = 2;
+
+	private static final int NULL_IDX = -1;
+	private static final int ATTR_SIZE = 3 * 4 + 1;
+	private static final long MAX_AGE_DAYS = 30;
+
+	private static final byte F_READABLE = 0x01;
+	private static final byte F_WRITABLE = 0x02;
+	private static final byte F_IS = 0x04;
+
+	private static final Map<String, MBeanInfoCache> CACHES = new HashMap<>(2);
+
+	private final Path path;
+	private ByteBuffer buffer;
+	private String[] strings;
+	private Map<String, Section> index;
+
+	private MBeanInfoCache(Path path) {
+		this.path = path;
+	}
+
+	/**
+	 * Returns MBeans metadata cache instance bound to provided cache file. Same file bound cache instance is shared by
+	 * all JMX connections.
+	 *
+	 * @param file
+	 *            cache file path
+	 * @return MBeans metadata cache instance
+	 */
+	static MBeanInfoCache getInstance(String file) {
+		synchronized (CACHES) {
+			return CACHES.computeIfAbsent(file, f -> new MBeanInfoCache(Paths.get(f)));
+		}
+	}
+
+	/**
+	 * Obtains cached MBean metadata.
+	 *
+	 * @param serverKey
+	 *            JMX server key
+	 * @param name
+	 *            MBean object name
+	 * @param className
+	 *            MBean class name, reported by MBean server
+	 * @return cached MBean info, or {@code null} if cache has no such MBean entry or cached MBean class name differs
+	 */
+	synchronized MBeanInfo get(String serverKey, ObjectName name, String className) {
+		load();
+		Section section = index.get(serverKey);
+		Integer offset = section == null ? null : section.entries.get(name.getCanonicalName());
+		if (offset == null) {
+			return null;
+		}
+
+		ByteBuffer buf = buffer.duplicate();
+		buf.position(offset);
+		MBeanInfo info = readInfo(buf);
+		return Objects.equals(info.getClassName(), className) ? info : null;
+	}
+
+	/**
+	 * Replaces cached metadata of all provided JMX server MBeans and writes cache file. Cached metadata of other JMX
+	 * servers is kept, unless it was not stored for {@value #MAX_AGE_DAYS} days.
+	 *
+	 * @param serverKey
+	 *            JMX server key
+	 * @param mbeans
+	 *            JMX server MBeans metadata map
+	 */
+	synchronized void store(String serverKey, Map<ObjectName, MBeanInfo> mbeans) {
+		load();
+
+		long now = System.currentTimeMillis();
+		long minTime = now - TimeUnit.DAYS.toMillis(MAX_AGE_DAYS);
+		Map<String, Map<String, MBeanInfo>> all = new LinkedHashMap<>();
+		Map<String, Long> times = new HashMap<>();
+		for (Map.Entry<String, Section> se : index.entrySet()) {
+			if (se.getKey().equals(serverKey) || se.getValue().time < minTime) {
+				continue;
+			}
+			Map<String, MBeanInfo> infos = new LinkedHashMap<>(se.getValue().entries.size());
+			for (Map.Entry<String, Integer> ee : se.getValue().entries.entrySet()) {
+				ByteBuffer buf = buffer.duplicate();
+				buf.position(ee.getValue());
+				infos.put(ee.getKey(), readInfo(buf));
+			}
+			all.put(se.getKey(), infos);
+			times.put(se.getKey(), se.getValue().time);
+		}
+		Map<String, MBeanInfo> infos = new LinkedHashMap<>(mbeans.size());
+		for (Map.Entry<ObjectName, MBeanInfo> me : mbeans.entrySet()) {
+			infos.put(me.getKey().getCanonicalName(), me.getValue());
+		}
+		all.put(serverKey, infos);
+		times.put(serverKey, now);
+
+		try {
+			Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+			if (tmp.getParent() != null) {
+				Files.createDirectories(tmp.getParent());
+			}
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				write(out, all, times);
+			}
+			buffer = null;
+			index = null;
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException exc) {
+			LOGGER.log(OpLevel.WARNING, "Failed to write MBeans metadata cache file: file={0}", path, exc);
+		}
+	}
+
+	private void load() {
+		if (index != null) {
+			return;
+		}
+
+		index = new LinkedHashMap<>();
+		strings = new String[0];
+		buffer = ByteBuffer.allocate(0);
+		if (!Files.isRegularFile(path)) {
+			return;
+		}
+
+		try {
+			ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(path));
+			if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+				LOGGER.log(OpLevel.WARNING, "Ignoring incompatible MBeans metadata cache file: file={0}", path);
+				return;
+			}
+			String[] sTable = new String[buf.getInt()];
+			for (int i = 0; i < sTable.length; i++) {
+				byte[] bytes = new byte[buf.getInt()];
+				buf.get(bytes);
+				sTable[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+			strings = sTable;
+			int sCount = buf.getInt();
+			for (int i = 0; i < sCount; i++) {
+				String serverKey = getString(buf.getInt());
+				Section section = new Section(buf.getLong());
+				int count = buf.getInt();
+				for (int j = 0; j < count; j++) {
+					int offset = buf.position();
+					section.entries.put(getString(buf.getInt()), offset);
+					skipInfo(buf);
+				}
+				index.put(serverKey, section);
+			}
+			buffer = buf;
+		} catch (IOException | RuntimeException exc) {
+			index.clear();
+			LOGGER.log(OpLevel.WARNING, "Failed to read MBeans metadata cache file: file={0}", path, exc);
+		}
+	}
+
+	private String getString(int idx) {
+		return idx == NULL_IDX ? null : strings[idx];
+	}
+
+	private MBeanInfo readInfo(ByteBuffer buf) {
+		buf.getInt(); // object name
+		String className = getString(buf.getInt());
+		String description = getString(buf.getInt());
+		MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[buf.getInt()];
+		for (int i = 0; i < attrs.length; i++) {
+			String aName = getString(buf.getInt());
+			String aType = getString(buf.getInt());
+			String aDescription = getString(buf.getInt());
+			byte flags = buf.get();
+			attrs[i] = new MBeanAttributeInfo(aName, aType, aDescription, (flags & F_READABLE) != 0,
+					(flags & F_WRITABLE) != 0, (flags & F_IS) != 0);
+		}
+		return new MBeanInfo(className, description, attrs, null, null, null);
+	}
+
+	private static void skipInfo(ByteBuffer buf) {
+		buf.getInt(); // class name
+		buf.getInt(); // description
+		int aCount = buf.getInt();
+		buf.position(buf.position() + aCount * ATTR_SIZE);
+	}
+
+	private static void write(DataOutputStream out, Map<String, Map<String, MBeanInfo>> all, Map<String, Long> times)
+			throws IOException {
+		Map<String, Integer> sIdx = new LinkedHashMap<>();
+		for (Map.Entry<String, Map<String, MBeanInfo>> se : all.entrySet()) {
+			intern(sIdx, se.getKey());
+			for (Map.Entry<String, MBeanInfo> ee : se.getValue().entrySet()) {
+				intern(sIdx, ee.getKey());
+				intern(sIdx, ee.getValue().getClassName());
+				intern(sIdx, ee.getValue().getDescription());
+				for (MBeanAttributeInfo aInfo : ee.getValue().getAttributes()) {
+					intern(sIdx, aInfo.getName());
+					intern(sIdx, aInfo.getType());
+					intern(sIdx, aInfo.getDescription());
+				}
+			}
+		}
+
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(sIdx.size());
+		for (String str : sIdx.keySet()) {
+			byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+		out.writeInt(all.size());
+		for (Map.Entry<String, Map<String, MBeanInfo>> se : all.entrySet()) {
+			out.writeInt(indexOf(sIdx, se.getKey()));
+			out.writeLong(times.get(se.getKey()));
+			out.writeInt(se.getValue().size());
+			for (Map.Entry<String, MBeanInfo> ee : se.getValue().entrySet()) {
+				out.writeInt(indexOf(sIdx, ee.getKey()));
+				out.writeInt(indexOf(sIdx, ee.getValue().getClassName()));
+				out.writeInt(indexOf(sIdx, ee.getValue().getDescription()));
+				MBeanAttributeInfo[] attrs = ee.getValue().getAttributes();
+				out.writeInt(attrs.length);
+				for (MBeanAttributeInfo aInfo : attrs) {
+					out.writeInt(indexOf(sIdx, aInfo.getName()));
+					out.writeInt(indexOf(sIdx, aInfo.getType()));
+					out.writeInt(indexOf(sIdx, aInfo.getDescription()));
+					out.writeByte((aInfo.isReadable() ? F_READABLE : 0) | (aInfo.isWritable() ? F_WRITABLE : 0)
+							| (aInfo.isIs() ? F_IS : 0));
+				}
+			}
+		}
+	}
+
+	private static void intern(Map<String, Integer> sIdx, String str) {
+		if (str != null) {
+			sIdx.putIfAbsent(str, sIdx.size());
+		}
+	}
+
+	private static int indexOf(Map<String, Integer> sIdx, String str) {
+		return str == null ? NULL_IDX : sIdx.get(str);
+	}
+
+	/**
+	 * Single JMX server cached MBeans entries index.
+	 */
+	private static class Section {
+		private final long time;
+		private final Map<String, Integer> entries = new HashMap<>();
+
+		private Section(long time) {
+			this.time = time;
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.*;
+
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+
+import com.jkoolcloud.tnt4j.stream.jmx.core.MetricKeyDictionary;
+
+/**
+ * <p>
+ * This class defines registry of sampled MBeans. Registry modifications are cheap and do not block readers, while
+ * sampling cycle iterates over immutable registry snapshot. Snapshot is taken lazily, only once after registry gets
+ * modified, so a burst of MBean (un)registrations does not copy registry contents for every change.
+ * </p>
+ * <p>
+ * Registry acquires process wide metric keys dictionary table for every added MBean and releases it for every removed
+ * MBean, atomically with registry modification. Closed registry does not accept new MBeans, so MBean added
+ * concurrently with registry closing does not leak its dictionary table.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+final class MBeanRegistry {
+	private final Map<ObjectName, MBeanInfo> entries = new LinkedHashMap<>(89);
+	private volatile Map<ObjectName, MBeanInfo> snapshot = Collections.emptyMap();
+	private volatile int size = 0;
+	private boolean closed = false;
+
+	/**
+	 * Puts MBean into registry. If registry already has such MBean, only MBean info is replaced.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @param info
+	 *            MBean info
+	 * @return {@code true} if MBean was added to registry, {@code false} - if registry already had such MBean or
+	 *         registry is closed
+	 *
+	 * @see MetricKeyDictionary#acquire(ObjectName)
+	 */
+	synchronized boolean put(ObjectName name, MBeanInfo info) {
+		if (closed) {
+			return false;
+		}
+		MBeanInfo prev = entries.put(name, info);
+		changed();
+		if (prev == null) {
+			MetricKeyDictionary.getInstance().acquire(name);
+		}
+		return prev == null;
+	}
+
+	/**
+	 * Removes MBean from registry.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @return removed MBean info, or {@code null} if registry had no such MBean
+	 *
+	 * @see MetricKeyDictionary#release(ObjectName)
+	 */
+	synchronized MBeanInfo remove(ObjectName name) {
+		MBeanInfo info = entries.remove(name);
+		if (info != null) {
+			changed();
+			MetricKeyDictionary.getInstance().release(name);
+		}
+		return info;
+	}
+
+	/**
+	 * Removes all MBeans from registry and closes registry: closed registry does not accept new MBeans.
+	 *
+	 * @see MetricKeyDictionary#release(ObjectName)
+	 */
+	synchronized void close() {
+		closed = true;
+		for (ObjectName name : entries.keySet()) {
+			MetricKeyDictionary.getInstance().release(name);
+		}
+		entries.clear();
+		changed();
+	}
+
+	private void changed() {
+		size = entries.size();
+		snapshot = null;
+	}
+
+	/**
+	 * Obtain immutable registry snapshot, preserving MBeans registration order.
+	 *
+	 * @return immutable registry contents snapshot
+	 */
+	Map<ObjectName, MBeanInfo> snapshot() {
+		Map<ObjectName, MBeanInfo> s = snapshot;
+		if (s == null) {
+			synchronized (this) {
+				s = snapshot;
+				if (s == null) {
+					s = Collections.unmodifiableMap(new LinkedHashMap<>(entries));
+					snapshot = s;
+				}
+			}
+		}
+		return s;
+	}
+
+	/**
+	 * Obtain number of MBeans in registry.
+	 *
+	 * @return number of MBeans in registry
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Checks whether registry has no MBeans.
+	 *
+	 * @return {@code true} if registry is empty, {@code false} - otherwise
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.jkoolcloud.tnt4j.core.OpLevel;
+import com.jkoolcloud.tnt4j.sink.EventSink;
+import com.jkoolcloud.tnt4j.stream.jmx.utils.LoggerUtils;
+import com.jkoolcloud.tnt4j.tracker.TrackingActivity;
+
+/**
+ * <p>
+ * This class defines bounded hand-off queue between sampling and posting of sampled activities. Activities are put into
+ * queue by sampling thread and posted (formatted and written to sink) by dedicated posting worker thread, so sink I/O
+ * does not add to sampling cycle time.
+ * </p>
+ * <p>
+ * When queue is full, activity is handled according to configured {@link OverflowPolicy}.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+final class PostingQueue {
+	private static final EventSink LOGGER = LoggerUtils.getLoggerSink(PostingQueue.class);
+
+	private static final long CLOSE_TIMEOUT_MS = 5000;
+
+	/**
+	 * Posting queue overflow policies.
+	 */
+	enum OverflowPolicy {
+		/**
+		 * Sampling thread waits until queue has free space.
+		 */
+		BLOCK,
+		/**
+		 * Oldest queued activity is dropped to make space for new one.
+		 */
+		DROP_OLDEST,
+		/**
+		 * New activity is dropped.
+		 */
+		DROP_NEWEST,
+		/**
+		 * New activity is posted by sampling thread itself, bypassing the queue.
+		 */
+		SPILL;
+
+		/**
+		 * Resolves overflow policy from provided name, ignoring case and treating {@code '-'} as {@code '_'}.
+		 *
+		 * @param name
+		 *            overflow policy name
+		 * @return resolved overflow policy, or {@link #BLOCK} if name is empty or does not match any policy
+		 */
+		static OverflowPolicy of(String name) {
+			if (StringUtils.isNotEmpty(name)) {
+				for (OverflowPolicy policy : values()) {
+					if (policy.name().equalsIgnoreCase(name.trim().replace('-', '_'))) {
+						return policy;
+					}
+				}
+			}
+			return BLOCK;
+		}
+	}
+
+	private final BlockingQueue<Entry> queue;
+	private final OverflowPolicy policy;
+	private final Consumer<TrackingActivity> poster;
+	private final Thread worker;
+	private volatile boolean closed = false;
+
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicLong spilledCount = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	/**
+	 * Create posting queue and start its posting worker thread.
+	 *
+	 * @param name
+	 *            posting worker thread name
+	 * @param capacity
+	 *            queue capacity
+	 * @param policy
+	 *            queue overflow policy
+	 * @param poster
+	 *            activity posting function
+	 */
+	PostingQueue(String name, int capacity, OverflowPolicy policy, Consumer<TrackingActivity> poster) {
+		this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+		this.policy = policy;
+		this.poster = poster;
+		this.worker = new Thread(this::drain, name);
+		this.worker.setDaemon(true);
+		this.worker.start();
+	}
+
+	/**
+	 * Puts activity into queue for posting, applying queue overflow policy if queue is full.
+	 *
+	 * @param activity
+	 *            activity to post
+	 */
+	void offer(TrackingActivity activity) {
+		offer(activity, null);
+	}
+
+	/**
+	 * Puts activity into queue for posting, applying queue overflow policy if queue is full. Provided callback is
+	 * invoked with actual activity posting time once activity gets posted, so it does not account activity queue wait
+	 * time. Callback is not invoked for dropped activities.
+	 *
+	 * @param activity
+	 *            activity to post
+	 * @param postedCallback
+	 *            callback consuming activity posting time in nanoseconds, or {@code null} if not needed
+	 */
+	void offer(TrackingActivity activity, LongConsumer postedCallback) {
+		if (closed) {
+			post(activity, postedCallback);
+			return;
+		}
+
+		Entry entry = new Entry(activity, postedCallback);
+		if (queue.offer(entry)) {
+			return;
+		}
+		switch (policy) {
+		case DROP_NEWEST:
+			droppedCount.incrementAndGet();
+			break;
+		case DROP_OLDEST:
+			while (!queue.offer(entry)) {
+				if (queue.poll() != null) {
+					droppedCount.incrementAndGet();
+				}
+			}
+			break;
+		case SPILL:
+			spilledCount.incrementAndGet();
+			post(activity, postedCallback);
+			break;
+		case BLOCK:
+		default:
+			try {
+				queue.put(entry);
+			} catch (InterruptedException exc) {
+				Thread.currentThread().interrupt();
+				droppedCount.incrementAndGet();
+			}
+			break;
+		}
+	}
+
+	private void drain() {
+		while (!closed || !queue.isEmpty()) {
+			try {
+				Entry entry = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (entry != null) {
+					maxWaitNanos.accumulateAndGet(System.nanoTime() - entry.queued, Math::max);
+					post(entry.activity, entry.postedCallback);
+				}
+			} catch (InterruptedException exc) {
+				break;
+			}
+		}
+	}
+
+	private void post(TrackingActivity activity, LongConsumer postedCallback) {
+		long started = System.nanoTime();
+		try {
+			poster.accept(activity);
+		} catch (Throwable exc) {
+			LOGGER.log(OpLevel.ERROR, "Failed to post activity: name={0}, id={1}", activity.getName(),
+					activity.getTrackingId(), exc);
+		}
+		if (postedCallback != null) {
+			postedCallback.accept(System.nanoTime() - started);
+		}
+	}
+
+	/**
+	 * Closes queue: posts all queued activities and stops posting worker thread. Waits for worker thread to complete
+	 * no longer than {@value #CLOSE_TIMEOUT_MS}ms.
+	 */
+	void close() {
+		closed = true;
+		try {
+			worker.join(CLOSE_TIMEOUT_MS);
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		}
+		worker.interrupt();
+	}
+
+	/**
+	 * Obtain number of queued activities.
+	 *
+	 * @return number of queued activities
+	 */
+	int getDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * Obtain number of activities dropped due to queue overflow.
+	 *
+	 * @return number of dropped activities
+	 */
+	long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * Obtain number of activities posted by sampling thread due to queue overflow.
+	 *
+	 * @return number of spilled activities
+	 */
+	long getSpilledCount() {
+		return spilledCount.get();
+	}
+
+	/**
+	 * Obtain maximal activity wait time in queue since last call and resets it.
+	 *
+	 * @return maximal activity queue wait time in microseconds
+	 */
+	long takeMaxWaitUsec() {
+		return TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.getAndSet(0));
+	}
+
+	private static class Entry {
+		private final TrackingActivity activity;
+		private final LongConsumer postedCallback;
+		private final long queued;
+
+		private Entry(TrackingActivity activity, LongConsumer postedCallback) {
+			this.activity = activity;
+			this.postedCallback = postedCallback;
+			this.queued = System.nanoTime();
+		}
+	}
+}
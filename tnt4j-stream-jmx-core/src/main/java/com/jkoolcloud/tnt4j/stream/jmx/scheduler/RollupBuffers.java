@@ -0,0 +1,299 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import com.jkoolcloud.tnt4j.core.Property;
+import com.jkoolcloud.tnt4j.core.PropertySnapshot;
+import com.jkoolcloud.tnt4j.stream.jmx.core.MetricColumns;
+
+/**
+ * <p>
+ * This class defines in-agent MBean metrics rollup buffers. MBeans are sampled at fast inner period and every numeric
+ * MBean snapshot property value is put into per-metric ring buffer. Once per outer (sampler) period, buffered values
+ * are rolled up into single MBean snapshot having for every numeric metric its last value (property name unchanged)
+ * and minimum, maximum, average and values count (properties suffixed {@value #MIN_SUFFIX}, {@value #MAX_SUFFIX},
+ * {@value #AVG_SUFFIX} and {@value #COUNT_SUFFIX}). Non numeric properties are taken from last MBean snapshot.
+ * </p>
+ * <p>
+ * Integral metric values are buffered and rolled up using {@code long} arithmetic, so minimum and maximum of integral
+ * metric are emitted as {@link Long} values. Once floating point value gets buffered for a metric within outer
+ * period, that metric is rolled up using {@code double} arithmetic.
+ * </p>
+ * <p>
+ * Every MBean having buffered values is rolled up once per outer period, no matter whether MBean was sampled on last
+ * inner period of outer period, so buffered values are never carried into next outer period. MBeans are rolled up in
+ * order they were first buffered, so rolled up snapshots keep stable order between outer periods.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+final class RollupBuffers {
+	/**
+	 * Rolled up metric minimum value property name suffix.
+	 */
+	static final String MIN_SUFFIX = "_min";
+	/**
+	 * Rolled up metric maximum value property name suffix.
+	 */
+	static final String MAX_SUFFIX = "_max";
+	/**
+	 * Rolled up metric average value property name suffix.
+	 */
+	static final String AVG_SUFFIX = "_avg";
+	/**
+	 * Rolled up metric values count property name suffix.
+	 */
+	static final String COUNT_SUFFIX = "_count";
+
+	private final int capacity;
+	private final Map<ObjectName, Series> buffers = Collections.synchronizedMap(new LinkedHashMap<>(89));
+
+	/**
+	 * Create metrics rollup buffers.
+	 *
+	 * @param capacity
+	 *            number of values single metric ring buffer holds, usually number of inner periods per outer period
+	 */
+	RollupBuffers(int capacity) {
+		this.capacity = Math.max(1, capacity);
+	}
+
+	/**
+	 * Determines effective rollup (inner) period. Inner period has to divide sampling (outer) period evenly, so every
+	 * outer period has same number of inner periods. Inner period not dividing outer period is rounded down to the
+	 * closest divisor of outer period.
+	 *
+	 * @param rollupPeriod
+	 *            configured rollup period
+	 * @param samplingPeriod
+	 *            sampling period
+	 * @return effective inner period, or {@code 0} if rollup mode is disabled: rollup period is not positive or not
+	 *         shorter than sampling period
+	 */
+	static long getInnerPeriod(long rollupPeriod, long samplingPeriod) {
+		if (rollupPeriod <= 0 || rollupPeriod >= samplingPeriod) {
+			return 0;
+		}
+		long count = (samplingPeriod + rollupPeriod - 1) / rollupPeriod;
+		while (samplingPeriod % count != 0) {
+			count++;
+		}
+		return samplingPeriod / count;
+	}
+
+	/**
+	 * Puts numeric property values of provided MBean snapshot into MBean metric ring buffers.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @param snapshot
+	 *            MBean sampled snapshot
+	 */
+	void add(ObjectName name, PropertySnapshot snapshot) {
+		Series series = buffers.computeIfAbsent(name, k -> new Series(snapshot.size()));
+		series.last = snapshot;
+		Map<String, Ring> rings = series.rings;
+		for (Property prop : snapshot.getProperties()) {
+			if (prop.getValue() instanceof Number && !prop.isTransient()) {
+				Ring ring = rings.get(prop.getKey());
+				if (ring == null) {
+					ring = new Ring(capacity);
+					rings.put(prop.getKey(), ring);
+				}
+				ring.add((Number) prop.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Rolls up buffered MBean metric values into last buffered MBean snapshot and resets MBean buffers.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @return snapshot having rolled up MBean metrics, or {@code null} if MBean has no buffered snapshot since last
+	 *         rollup
+	 */
+	PropertySnapshot rollup(ObjectName name) {
+		Series series = buffers.get(name);
+		return series == null ? null : series.rollup();
+	}
+
+	/**
+	 * Rolls up buffered metric values of all MBeans having buffered snapshots since last rollup.
+	 *
+	 * @return map of MBean object names and snapshots having rolled up MBean metrics
+	 *
+	 * @see #rollup(ObjectName)
+	 */
+	Map<ObjectName, PropertySnapshot> rollupAll() {
+		Map<ObjectName, PropertySnapshot> rolled = new LinkedHashMap<>();
+		synchronized (buffers) {
+			for (Map.Entry<ObjectName, Series> se : buffers.entrySet()) {
+				PropertySnapshot snapshot = se.getValue().rollup();
+				if (snapshot != null) {
+					rolled.put(se.getKey(), snapshot);
+				}
+			}
+		}
+		return rolled;
+	}
+
+	private static PropertySnapshot rollup(Map<String, Ring> rings, PropertySnapshot snapshot) {
+		PropertySnapshot rolled = new PropertySnapshot(snapshot.getCategory(), snapshot.getName());
+		for (Property prop : snapshot.getProperties()) {
+			rolled.add(prop);
+			Ring ring = prop.getValue() instanceof Number ? rings.get(prop.getKey()) : null;
+			if (ring != null && ring.count > 0) {
+				if (ring.integral) {
+					long min = Long.MAX_VALUE, max = Long.MIN_VALUE, sum = 0;
+					for (int i = 0; i < ring.count; i++) {
+						long v = ring.longs[i];
+						min = Math.min(min, v);
+						max = Math.max(max, v);
+						sum += v;
+					}
+					rolled.add(prop.getKey() + MIN_SUFFIX, min);
+					rolled.add(prop.getKey() + MAX_SUFFIX, max);
+					rolled.add(prop.getKey() + AVG_SUFFIX, (double) sum / ring.count);
+				} else {
+					double min = Double.MAX_VALUE, max = -Double.MAX_VALUE, sum = 0;
+					for (int i = 0; i < ring.count; i++) {
+						double v = ring.doubles[i];
+						min = Math.min(min, v);
+						max = Math.max(max, v);
+						sum += v;
+					}
+					rolled.add(prop.getKey() + MIN_SUFFIX, min);
+					rolled.add(prop.getKey() + MAX_SUFFIX, max);
+					rolled.add(prop.getKey() + AVG_SUFFIX, sum / ring.count);
+				}
+				rolled.add(prop.getKey() + COUNT_SUFFIX, ring.count);
+			}
+		}
+		for (Ring ring : rings.values()) {
+			ring.reset();
+		}
+		return rolled;
+	}
+
+	/**
+	 * Removes provided MBean metric buffers.
+	 *
+	 * @param name
+	 *            MBean object name
+	 */
+	void remove(ObjectName name) {
+		buffers.remove(name);
+	}
+
+	/**
+	 * Removes all MBeans metric buffers.
+	 */
+	void clear() {
+		buffers.clear();
+	}
+
+	/**
+	 * Obtain number of buffered metrics.
+	 *
+	 * @return number of buffered metrics
+	 */
+	int getSeriesCount() {
+		int count = 0;
+		synchronized (buffers) {
+			for (Series series : buffers.values()) {
+				count += series.rings.size();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Single MBean metric ring buffers and last buffered MBean snapshot.
+	 */
+	private static class Series {
+		private final Map<String, Ring> rings;
+		private PropertySnapshot last;
+
+		private Series(int size) {
+			rings = new HashMap<>(size * 2);
+		}
+
+		private PropertySnapshot rollup() {
+			PropertySnapshot snapshot = last;
+			if (snapshot == null) {
+				return null;
+			}
+			last = null;
+			return RollupBuffers.rollup(rings, snapshot);
+		}
+	}
+
+	/**
+	 * Single metric values ring buffer. When buffer is full, oldest values get overwritten. Values are kept in
+	 * {@code long} buffer while all values are integral, and are moved to {@code double} buffer once floating point
+	 * value is added.
+	 */
+	private static class Ring {
+		private final long[] longs;
+		private double[] doubles;
+		private boolean integral = true;
+		private int next = 0;
+		private int count = 0;
+
+		private Ring(int capacity) {
+			longs = new long[capacity];
+		}
+
+		private void add(Number value) {
+			if (integral && MetricColumns.isIntegral(value)) {
+				longs[next] = value.longValue();
+			} else {
+				if (integral) {
+					toDoubles();
+				}
+				doubles[next] = value.doubleValue();
+			}
+			next = (next + 1) % longs.length;
+			if (count < longs.length) {
+				count++;
+			}
+		}
+
+		private void toDoubles() {
+			if (doubles == null) {
+				doubles = new double[longs.length];
+			}
+			for (int i = 0; i < count; i++) {
+				doubles[i] = longs[i];
+			}
+			integral = false;
+		}
+
+		private void reset() {
+			next = 0;
+			count = 0;
+			integral = true;
+		}
+	}
+}
@@ -16,6 +16,8 @@
 
 package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
 
+import java.util.function.LongConsumer;
+
 import com.jkoolcloud.tnt4j.ActivityTask;
 import com.jkoolcloud.tnt4j.TrackingLogger;
 import com.jkoolcloud.tnt4j.core.OpLevel;
@@ -28,6 +30,8 @@ import com.jkoolcloud.tnt4j.tracker.TrackingActivity;
  * @version $Revision: 1 $
  */
 public class SampleActivityTask extends ActivityTask {
+	private volatile boolean suppressPost = false;
+	private PostingQueue postingQueue;
 
 	/**
 	 * Create a sampling task for a specific logger.
@@ -68,12 +72,44 @@ public class SampleActivityTask extends ActivityTask {
 	@Override
 	protected long endActivity() {
 		activity.stop();
-		postActivity(activity);
+		if (suppressPost) {
+			suppressPost = false;
+		} else {
+			postActivity(activity);
+		}
 		return activity.getElapsedTimeUsec();
 	}
 
 	/**
-	 * Posts provided activity over bound tracking logger.
+	 * Suppresses posting of currently ending activity. Used by sample handler on sampling cycles producing no data to
+	 * post, e.g. inner metrics rollup cycles.
+	 */
+	public void suppressPost() {
+		suppressPost = true;
+	}
+
+	/**
+	 * Binds posting queue used to post activities asynchronously.
+	 *
+	 * @param postingQueue
+	 *            posting queue instance, {@code null} to post activities synchronously
+	 */
+	void setPostingQueue(PostingQueue postingQueue) {
+		this.postingQueue = postingQueue;
+	}
+
+	/**
+	 * Returns bound posting queue.
+	 *
+	 * @return posting queue instance, or {@code null} if activities are posted synchronously
+	 */
+	PostingQueue getPostingQueue() {
+		return postingQueue;
+	}
+
+	/**
+	 * Posts provided activity over bound tracking logger. If posting queue is bound, activity is put into that queue
+	 * and posted by queue posting worker thread.
 	 * 
 	 * @param tActivity
 	 *            activity instance to post
@@ -82,8 +118,32 @@ public class SampleActivityTask extends ActivityTask {
 	 * @see com.jkoolcloud.tnt4j.TrackingLogger#tnt(com.jkoolcloud.tnt4j.tracker.TrackingActivity)
 	 */
 	public void postActivity(TrackingActivity tActivity) {
+		postActivity(tActivity, null);
+	}
+
+	/**
+	 * Posts provided activity over bound tracking logger and reports actual activity posting time to provided
+	 * callback. If posting queue is bound, activity is put into that queue and callback is invoked by queue posting
+	 * worker thread, once activity gets posted.
+	 *
+	 * @param tActivity
+	 *            activity instance to post
+	 * @param postedCallback
+	 *            callback consuming activity posting time in nanoseconds, or {@code null} if not needed
+	 *
+	 * @see #postActivity(com.jkoolcloud.tnt4j.tracker.TrackingActivity)
+	 */
+	public void postActivity(TrackingActivity tActivity, LongConsumer postedCallback) {
 		if (doSample(tActivity)) {
-			logger.tnt(tActivity);
+			if (postingQueue == null) {
+				long started = System.nanoTime();
+				logger.tnt(tActivity);
+				if (postedCallback != null) {
+					postedCallback.accept(System.nanoTime() - started);
+				}
+			} else {
+				postingQueue.offer(tActivity, postedCallback);
+			}
 		}
 	}
 
@@ -51,9 +51,14 @@ public class SampleContextImpl implements SampleContext {
 		return handle.mbeans.size();
 	}
 
+	@Override
+	public double getDiscoveryProgress() {
+		return handle.getDiscoveryProgress();
+	}
+
 	@Override
 	public long getExcludeAttrCount() {
-		return handle.excCount;
+		return handle.excCount.get();
 	}
 
 	@Override
@@ -89,7 +94,7 @@ public class SampleContextImpl implements SampleContext {
 
 	@Override
 	public long getTotalErrorCount() {
-		return handle.errorCount;
+		return handle.errorCount.get();
 	}
 
 	@Override
@@ -18,24 +18,36 @@ package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
 import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
 
 import javax.management.*;
 import javax.management.relation.MBeanServerNotificationFilter;
+import javax.management.remote.JMXAddressable;
 import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXServiceURL;
 
 import org.apache.commons.lang3.StringUtils;
 
 import com.jkoolcloud.tnt4j.core.*;
+import com.jkoolcloud.tnt4j.sink.EventSink;
 import com.jkoolcloud.tnt4j.source.Source;
 import com.jkoolcloud.tnt4j.stream.jmx.StreamJMXConstants;
 import com.jkoolcloud.tnt4j.stream.jmx.aggregations.AggregationsManager;
 import com.jkoolcloud.tnt4j.stream.jmx.conditions.*;
 import com.jkoolcloud.tnt4j.stream.jmx.core.JMXServerConnection;
+import com.jkoolcloud.tnt4j.stream.jmx.core.MetricKeyDictionary;
 import com.jkoolcloud.tnt4j.stream.jmx.core.SampleContext;
 import com.jkoolcloud.tnt4j.stream.jmx.core.SampleListener;
+import com.jkoolcloud.tnt4j.stream.jmx.core.Sampler;
 import com.jkoolcloud.tnt4j.stream.jmx.core.UnsupportedAttributeException;
+import com.jkoolcloud.tnt4j.stream.jmx.utils.LoggerUtils;
 import com.jkoolcloud.tnt4j.tracker.TrackingActivity;
+import com.jkoolcloud.tnt4j.utils.Utils;
 
 /**
  * <p>
@@ -62,28 +74,110 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	public static String STAT_TOTAL_METRIC_COUNT = "total.metric.count";
 	public static String STAT_LAST_METRIC_COUNT = "last.metric.count";
 	public static String STAT_SAMPLE_TIME_USEC = "sample.time.usec";
+	public static String STAT_SAMPLING_THREADS = "sampling.threads";
+	public static String STAT_TOTAL_TIMEOUT_COUNT = "total.timeout.count";
+	public static String STAT_LAST_TIMEOUT_COUNT = "last.timeout.count";
+	public static String STAT_LAST_SKIPPED_COUNT = "last.skipped.count";
+	public static String STAT_COOL_DOWN_COUNT = "cool.down.count";
+	public static String STAT_ADAPTIVE_MAX_INTERVAL = "adaptive.max.interval";
+	public static String STAT_LAST_ADAPTIVE_SKIP_COUNT = "last.adaptive.skip.count";
+	public static String STAT_ADAPTIVE_BACKED_OFF_COUNT = "adaptive.backed.off.count";
+	public static String STAT_FILTER_GROUP_COUNT = "filter.group.count";
+	public static String STAT_DELTA_KEYFRAME_INTERVAL = "delta.keyframe.interval";
+	public static String STAT_ROLLUP_INTERVAL = "rollup.interval";
+	public static String STAT_ROLLUP_SERIES_COUNT = "rollup.series.count";
+	public static String STAT_METRIC_KEYS_COUNT = "metric.keys.count";
+	public static String STAT_MBEAN_INFO_CACHE_HIT_COUNT = "mbean.info.cache.hit.count";
+	public static String STAT_MBEAN_INFO_POOL_SIZE = "mbean.info.pool.size";
+	public static String STAT_DISCOVERY_PROGRESS = "discovery.progress.pct";
+	public static String STAT_BATCH_BYTES_TARGET = "batch.bytes.target";
+	public static String STAT_POST_QUEUE_DEPTH = "post.queue.depth";
+	public static String STAT_POST_QUEUE_MAX_WAIT_USEC = "post.queue.max.wait.usec";
+	public static String STAT_POST_QUEUE_DROP_COUNT = "post.queue.drop.count";
+	public static String STAT_POST_QUEUE_SPILL_COUNT = "post.queue.spill.count";
+
+	/**
+	 * Number of MBean partitions per sampling thread, used to balance load among parallel sampling workers.
+	 */
+	private static final int PARTITIONS_PER_THREAD = 4;
+	/**
+	 * Number of MBean attributes fetch threads per sampling thread. Fetch threads pool is bounded, so MBeans hanging
+	 * remote calls can't exhaust agent threads.
+	 */
+	private static final int FETCH_THREADS_PER_WORKER = 4;
+	/**
+	 * Maximal time in milliseconds to wait for handler executors termination on cleanup.
+	 */
+	private static final long TERMINATION_TIMEOUT = 5000;
+	private static final EventSink LOGGER = LoggerUtils.getLoggerSink(SampleHandlerImpl.class);
 
 	private final ReentrantLock lock = new ReentrantLock();
 	private final Source source;
 
 	private final String mbeanIncFilter, mbeanExcFilter;
-	long sampleCount = 0, totalMetricCount = 0, totalActionCount = 0;
+	long sampleCount = 0, emitCount = 0, totalMetricCount = 0;
 	long lastMetricCount = 0, lastSampleTimeUsec = 0;
-	long noopCount = 0, excCount = 0, errorCount = 0;
+	long noopCount = 0;
+	final AtomicLong totalActionCount = new AtomicLong();
+	final AtomicLong excCount = new AtomicLong();
+	final AtomicLong errorCount = new AtomicLong();
+	final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicInteger lastTimeoutCount = new AtomicInteger();
+	private final AtomicInteger lastSkippedCount = new AtomicInteger();
+	private final AtomicInteger lastAdaptiveSkipCount = new AtomicInteger();
 
 	int batchSize = -1;
+	long batchBytes = 0;
+	boolean batchAutoTune = false;
+	private BatchSizer batchSizer;
+	private long pendingBytes = 0;
+	int samplingThreads = 0;
+	private ExecutorService samplingExecutor;
+	private ExecutorService registrarExecutor;
+	private ExecutorService fetchExecutor;
+	private ExecutorService infoExecutor;
+	int mbeanTimeout = 0;
+	int cycleTimeout = 0;
+	int timeoutCoolDown = 0;
+	private long cycleDeadline = 0;
+	private final Map<ObjectName, Long> coolDowns = new ConcurrentHashMap<>();
+	private final Set<ObjectName> fetchingMBeans = ConcurrentHashMap.newKeySet();
+	int adaptiveMaxInterval = 0;
+	private AdaptiveFrequency adaptiveFrequency;
+	private final List<FilterGroup> filterGroups;
+	private final Map<ObjectName, Integer> groupIntervals = new ConcurrentHashMap<>();
+	int deltaKeyframeInterval = 0;
+	private SnapshotDeltaFilter deltaFilter;
+	private boolean keyframeCycle = true;
+	int rollupInterval = 1;
+	private RollupBuffers rollups;
+	private boolean emitCycle = true;
+	int mbeanInfoThreads = 4;
+	private MBeanInfoCache infoCache;
+	private String serverKey;
+	private final AtomicLong infoCacheHitCount = new AtomicLong();
+	private ExecutorService discoveryExecutor;
+	private volatile boolean discovering = false;
+	private boolean filtersLoaded = false;
+	private final AtomicInteger discoveryTotal = new AtomicInteger();
+	private final AtomicInteger discoveredCount = new AtomicInteger();
+	private final Set<ObjectName> unregisteredMBeans = ConcurrentHashMap.newKeySet();
 	final JMXConnector serviceConn;
 
 	final JMXServerConnection mbeanServer;
 	private final SampleContext context;
-	Throwable lastError;
+	volatile Throwable lastError;
 
 	private MBeanServerNotificationFilter MBeanFilter;
 	private final List<ObjectName> iFilters = new ArrayList<>(5), eFilters = new ArrayList<>(5);
 	private final Map<AttributeCondition, AttributeAction> conditions = new LinkedHashMap<>(89);
-	final Map<ObjectName, MBeanInfo> mbeans = Collections.synchronizedMap(new LinkedHashMap<>(89));
+	private volatile ConditionIndex conditionIndex = ConditionIndex.EMPTY;
+	final MBeanRegistry mbeans = new MBeanRegistry();
+	private final Map<ObjectName, SamplingPlan> plans = new ConcurrentHashMap<>(89);
 
-	private final List<SampleListener> listeners = new ArrayList<>(5);
+	private static final SampleListener[] NO_LISTENERS = new SampleListener[0];
+	private volatile SampleListener[] listeners = NO_LISTENERS;
+	private final Object listenersLock = new Object();
 
 	private Scheduler scheduler;
 
@@ -100,6 +194,47 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 		source = (Source) config.get(CFG_SOURCE);
 		batchSize = ((Number) config.get(CFG_BATCH_SIZE)).intValue();
 		serviceConn = (JMXConnector) config.get(CFG_JMX_CONNECTOR);
+		batchBytes = Utils.getLong(CFG_BATCH_BYTES, config, batchBytes);
+		batchAutoTune = Utils.getBoolean(CFG_BATCH_AUTO_TUNE, config, batchAutoTune);
+		if (batchBytes > 0) {
+			batchSizer = new BatchSizer(batchBytes, batchAutoTune);
+		}
+		samplingThreads = Utils.getInt(CFG_SAMPLING_THREADS, config, samplingThreads);
+		mbeanTimeout = Utils.getInt(CFG_MBEAN_TIMEOUT, config, mbeanTimeout);
+		cycleTimeout = Utils.getInt(CFG_CYCLE_TIMEOUT, config, cycleTimeout);
+		timeoutCoolDown = Utils.getInt(CFG_TIMEOUT_COOL_DOWN, config, timeoutCoolDown);
+		adaptiveMaxInterval = Utils.getInt(CFG_ADAPTIVE_MAX_INTERVAL, config, adaptiveMaxInterval);
+		if (adaptiveMaxInterval > 1) {
+			adaptiveFrequency = new AdaptiveFrequency(adaptiveMaxInterval);
+		}
+		deltaKeyframeInterval = Utils.getInt(CFG_DELTA_KEYFRAME_INTERVAL, config, deltaKeyframeInterval);
+		if (deltaKeyframeInterval > 0) {
+			deltaFilter = new SnapshotDeltaFilter(deltaKeyframeInterval);
+		}
+		Number period = (Number) config.get(Sampler.CFG_SAMPLING_PERIOD);
+		long samplingPeriod = period == null ? Sampler.JMX_SAMPLE_PERIOD : period.longValue();
+		long rollupPeriod = Utils.getLong(CFG_ROLLUP_PERIOD, config, 0);
+		long innerPeriod = RollupBuffers.getInnerPeriod(rollupPeriod, samplingPeriod);
+		filterGroups = FilterGroup.parse((String) config.get(CFG_FILTER_GROUPS), samplingPeriod,
+				FilterGroup.getMinTickPeriod(samplingPeriod, innerPeriod));
+		long tickPeriod = FilterGroup.getTickPeriod(filterGroups, samplingPeriod);
+		if (innerPeriod > 0) {
+			tickPeriod = FilterGroup.gcd(tickPeriod, innerPeriod);
+			rollupInterval = (int) Math.max(1, samplingPeriod / tickPeriod);
+			rollups = new RollupBuffers(rollupInterval);
+			LOGGER.log(innerPeriod == rollupPeriod ? OpLevel.INFO : OpLevel.WARNING,
+					"Rollup mode enabled: sampling.period={0}, rollup.period={1}, inner.period={2}, tick.period={3}",
+					samplingPeriod, rollupPeriod, innerPeriod, tickPeriod);
+		}
+		for (FilterGroup group : filterGroups) {
+			group.interval = (int) Math.max(1, group.getPeriod() / tickPeriod);
+		}
+
+		mbeanInfoThreads = Utils.getInt(CFG_MBEAN_INFO_THREADS, config, mbeanInfoThreads);
+		String infoCacheFile = (String) config.get(CFG_MBEAN_INFO_CACHE);
+		if (StringUtils.isNotEmpty(infoCacheFile)) {
+			infoCache = MBeanInfoCache.getInstance(infoCacheFile);
+		}
 
 		context = new SampleContextImpl(this);
 	}
@@ -166,6 +301,9 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 				return false;
 			}
 		}
+		if (!filterGroups.isEmpty()) {
+			return getGroupInterval(oName) > 0;
+		}
 		for (ObjectName incFilter : iFilters) {
 			if (incFilter.apply(oName)) {
 				return true;
@@ -175,30 +313,296 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	}
 
 	/**
-	 * Load JMX beans based on a configured MBean filter list. All loaded MBeans are stored in {@link HashMap}.
+	 * Determine sampling interval (in scheduler ticks) of provided MBean, as minimal interval of filter groups including
+	 * that MBean.
+	 *
+	 * @param oName
+	 *            object name
+	 * @return MBean sampling interval, {@code 0} if MBean is not included by any filter group
+	 */
+	private int getGroupInterval(ObjectName oName) {
+		int interval = 0;
+		for (FilterGroup group : filterGroups) {
+			if ((interval == 0 || group.interval < interval) && group.isIncluded(oName)) {
+				interval = group.interval;
+			}
+		}
+		return interval;
+	}
+
+	/**
+	 * Starts asynchronous JMX beans discovery based on a configured MBean filter list, unless discovery is already
+	 * running. Filters are tokenized and MBean registration listener is installed synchronously, while MBeans are
+	 * queried and loaded by discovery thread, so sampling cycle is not blocked and samples MBeans already loaded.
+	 * <p>
+	 * When filter groups are configured (see {@link #CFG_FILTER_GROUPS}), MBeans are loaded using filter groups
+	 * include/exclude filters instead of handler include filter, while handler exclude filter applies to all groups.
 	 */
 	private void loadMBeans() {
+		if (discovering) {
+			return;
+		}
 		try {
-			tokenizeFilters(mbeanIncFilter, iFilters);
-			if (StringUtils.isNotEmpty(mbeanExcFilter)) {
-				tokenizeFilters(mbeanExcFilter, eFilters);
+			if (!filtersLoaded) {
+				loadFilters();
 			}
 			listenForChanges();
 
+			discovering = true;
+			getDiscoveryExecutor().execute(this::discoverMBeans);
+		} catch (RejectedExecutionException exc) {
+			discovering = false; // handler is being cleaned up
+		} catch (Exception ex) {
+			discovering = false;
+			doError(ex);
+		}
+	}
+
+	/**
+	 * Tokenizes handler and filter groups include/exclude filters.
+	 *
+	 * @throws MalformedObjectNameException
+	 *             if filter defined object name is malformed
+	 */
+	private void loadFilters() throws MalformedObjectNameException {
+		iFilters.clear();
+		eFilters.clear();
+		if (filterGroups.isEmpty()) {
+			tokenizeFilters(mbeanIncFilter, iFilters);
+		} else {
+			for (FilterGroup group : filterGroups) {
+				group.iFilters.clear();
+				group.eFilters.clear();
+				tokenizeFilters(group.getIncludeFilter(), group.iFilters);
+				if (StringUtils.isNotEmpty(group.getExcludeFilter())) {
+					tokenizeFilters(group.getExcludeFilter(), group.eFilters);
+				}
+				iFilters.addAll(group.iFilters);
+			}
+		}
+		if (StringUtils.isNotEmpty(mbeanExcFilter)) {
+			tokenizeFilters(mbeanExcFilter, eFilters);
+		}
+		filtersLoaded = true;
+	}
+
+	/**
+	 * Discovers JMX beans matching configured MBean filters. All included MBeans are queried first to determine
+	 * discovery scope, then MBean infos are loaded and MBeans get registered for sampling one by one, as soon as their
+	 * infos arrive.
+	 * <p>
+	 * When MBeans metadata cache is configured (see {@link #CFG_MBEAN_INFO_CACHE}), cached MBean info is used for MBeans
+	 * having same class name as cached one, and cache gets updated once discovery completes.
+	 *
+	 * @see #getDiscoveryProgress()
+	 */
+	private void discoverMBeans() {
+		try {
+			discoveryTotal.set(0);
+			discoveredCount.set(0);
+			unregisteredMBeans.clear();
+
 			// run inclusion
+			Map<ObjectName, String> objSet = new LinkedHashMap<>();
 			for (ObjectName nameFilter : iFilters) {
-				Set<ObjectName> objSet = mbeanServer.queryNames(nameFilter, null);
-				if (!eFilters.isEmpty()) {
-					excludeFromSet(objSet, eFilters);
+				objSet.putAll(queryMBeans(nameFilter));
+			}
+			if (!eFilters.isEmpty()) {
+				excludeFromSet(objSet.keySet(), eFilters);
+			}
+			if (!filterGroups.isEmpty()) {
+				objSet.keySet().removeIf(oName -> !putGroupInterval(oName));
+			}
+			discoveryTotal.set(objSet.size());
+
+			if (registerMBeans(objSet) && infoCache != null) {
+				infoCache.store(serverKey, mbeans.snapshot());
+			}
+		} catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+		} catch (Throwable ex) {
+			doError(ex);
+		} finally {
+			shutdownInfoExecutor();
+			discovering = false;
+		}
+	}
+
+	/**
+	 * Queries MBean server for MBeans matching provided object name pattern. When MBeans metadata cache is configured,
+	 * MBean class names are obtained along with object names, to validate cached MBean infos.
+	 *
+	 * @param nameFilter
+	 *            MBean object name pattern
+	 * @return map of matching MBean object names and class names, class names are {@code null} when cache is not used
+	 * @throws Exception
+	 *             if communication problem occurred when talking to the MBean server
+	 */
+	private Map<ObjectName, String> queryMBeans(ObjectName nameFilter) throws Exception {
+		Map<ObjectName, String> objSet = new LinkedHashMap<>();
+		if (infoCache == null) {
+			for (ObjectName oName : mbeanServer.queryNames(nameFilter, null)) {
+				objSet.put(oName, null);
+			}
+		} else {
+			if (serverKey == null) {
+				serverKey = getServerKey();
+			}
+			for (ObjectInstance oInst : mbeanServer.queryMBeans(nameFilter, null)) {
+				objSet.put(oInst.getObjectName(), oInst.getClassName());
+			}
+		}
+		return objSet;
+	}
+
+	/**
+	 * Determines JMX server key used to bind MBeans metadata cache entries to JMX server. Key is JMX connector service
+	 * URL, so cached entries stay valid over JMX server restarts. Local (in-process) MBean server has key
+	 * {@code "local"}.
+	 *
+	 * @return JMX server key
+	 */
+	private String getServerKey() {
+		JMXServiceURL url = serviceConn instanceof JMXAddressable ? ((JMXAddressable) serviceConn).getAddress() : null;
+		return url == null ? "local" : url.toString();
+	}
+
+	/**
+	 * Loads MBean infos of provided MBeans and registers MBeans for sampling. Valid MBean infos are taken from MBeans
+	 * metadata cache, while rest of them are fetched from MBean server in parallel using up to
+	 * {@link #CFG_MBEAN_INFO_THREADS} threads. MBeans are registered in provided MBeans map order, every one as soon as
+	 * its own and all preceding MBean infos are loaded. MBean unregistered while fetching its info, or unregistered
+	 * (notification received) since discovery started, is skipped.
+	 *
+	 * @param objSet
+	 *            map of MBean object names and class names
+	 * @return {@code true} if all MBeans were processed, {@code false} - if discovery got interrupted
+	 * @throws Exception
+	 *             if communication problem occurred when talking to the MBean server
+	 */
+	private boolean registerMBeans(Map<ObjectName, String> objSet) throws Exception {
+		boolean parallel = mbeanInfoThreads > 1 && objSet.size() > 1;
+		Map<ObjectName, Future<MBeanInfo>> fetches = new LinkedHashMap<>(objSet.size());
+		for (Entry<ObjectName, String> oe : objSet.entrySet()) {
+			ObjectName oName = oe.getKey();
+			MBeanInfo info = infoCache == null ? null : infoCache.get(serverKey, oName, oe.getValue());
+			if (info != null) {
+				infoCacheHitCount.incrementAndGet();
+				fetches.put(oName, CompletableFuture.completedFuture(info));
+			} else {
+				fetches.put(oName, parallel ? getInfoExecutor().submit(() -> mbeanServer.getMBeanInfo(oName)) : null);
+			}
+		}
+
+		try {
+			for (Entry<ObjectName, Future<MBeanInfo>> fe : fetches.entrySet()) {
+				if (Thread.currentThread().isInterrupted()) {
+					return false;
 				}
-				for (ObjectName oName : objSet) {
-					mbeans.put(oName, mbeanServer.getMBeanInfo(oName));
-					runRegister(oName);
+				ObjectName oName = fe.getKey();
+				try {
+					MBeanInfo info = fe.getValue() == null ? mbeanServer.getMBeanInfo(oName) : fe.getValue().get();
+					if (!unregisteredMBeans.contains(oName) && putMBean(oName, info)) {
+						runRegister(oName);
+					}
+				} catch (InstanceNotFoundException exc) {
+					doError(exc);
+				} catch (ExecutionException exc) {
+					Throwable cause = exc.getCause();
+					if (!(cause instanceof InstanceNotFoundException)) {
+						throw cause instanceof Exception ? (Exception) cause : exc;
+					}
+					doError(cause);
 				}
+				discoveredCount.incrementAndGet();
 			}
-		} catch (Exception ex) {
-			doError(ex);
+			return true;
+		} finally {
+			for (Future<MBeanInfo> fetch : fetches.values()) {
+				if (fetch != null) {
+					fetch.cancel(true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Obtain MBeans discovery progress.
+	 *
+	 * @return MBeans discovery progress percentage
+	 *
+	 * @see SampleContext#getDiscoveryProgress()
+	 */
+	double getDiscoveryProgress() {
+		int total = discoveryTotal.get();
+		if (total == 0) {
+			return discovering ? 0.0 : 100.0;
+		}
+		return discoveredCount.get() * 100.0 / total;
+	}
+
+	/**
+	 * Puts MBean into sampled MBeans registry. Registry keeps pooled compact copy of MBean info, shared by all same
+	 * layout MBeans. Newly registered MBean acquires its table in process wide metric keys dictionary.
+	 *
+	 * @param oName
+	 *            object name
+	 * @param info
+	 *            MBean info
+	 * @return {@code true} if MBean was not registered before, {@code false} - if MBean info of already registered
+	 *         MBean got replaced or handler is cleaned up
+	 *
+	 * @see MBeanInfoPool#compact(MBeanInfo)
+	 * @see MBeanRegistry#put(ObjectName, MBeanInfo)
+	 */
+	private boolean putMBean(ObjectName oName, MBeanInfo info) {
+		return mbeans.put(oName, MBeanInfoPool.compact(info));
+	}
+
+	/**
+	 * Binds provided MBean with sampling interval of filter groups including that MBean.
+	 *
+	 * @param oName
+	 *            object name
+	 * @return {@code true} if MBean is included by any of filter groups, {@code false} - otherwise
+	 */
+	private boolean putGroupInterval(ObjectName oName) {
+		int interval = getGroupInterval(oName);
+		if (interval > 1) {
+			groupIntervals.put(oName, interval);
+		} else {
+			groupIntervals.remove(oName);
 		}
+		return interval > 0;
+	}
+
+	/**
+	 * Checks whether provided MBean is due to be sampled in current sampling cycle, according to sampling interval of
+	 * filter groups including that MBean.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @return {@code true} if MBean shall be sampled in current cycle, {@code false} - otherwise
+	 */
+	private boolean isGroupDue(ObjectName name) {
+		Integer interval = groupIntervals.isEmpty() ? null : groupIntervals.get(name);
+		return interval == null || (sampleCount - 1) % interval == 0;
+	}
+
+	/**
+	 * Determines current sampling cycle number of provided MBean, counting only cycles MBean filter group is due to be
+	 * sampled, so MBean cycle based intervals (adaptive sampling, timeout cool-down) do not depend on group period.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @return MBean filter group sampling cycle number, or scheduler sampling cycle number if MBean is sampled every
+	 *         cycle
+	 *
+	 * @see #isGroupDue(javax.management.ObjectName)
+	 */
+	private long getGroupCycle(ObjectName name) {
+		Integer interval = groupIntervals.isEmpty() ? null : groupIntervals.get(name);
+		return interval == null ? sampleCount : (sampleCount - 1) / interval + 1;
 	}
 
 	/**
@@ -217,6 +621,9 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 
 	/**
 	 * Sample MBeans based on a configured MBean filter list and store within given activity as snapshots.
+	 * <p>
+	 * When handler is configured to use more than one sampling thread (see {@link #CFG_SAMPLING_THREADS}), MBeans are
+	 * sampled in parallel by {@link #sampleMBeansParallel(Activity)}.
 	 * 
 	 * @param activity
 	 *            instance where sampled MBean attributes are stored
@@ -227,41 +634,111 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 			activity.setSource(source);
 		}
 
+		pendingBytes = 0;
+		if (samplingThreads > 1) {
+			return sampleMBeansParallel(activity);
+		}
+
 		int pCount = 0;
-		Set<Entry<ObjectName, MBeanInfo>> entrySet = mbeans.entrySet();
+		Set<Entry<ObjectName, MBeanInfo>> entrySet = mbeans.snapshot().entrySet();
 		Iterator<Entry<ObjectName, MBeanInfo>> itr = entrySet.iterator();
-		int i = 0;
+		int mIdx = 0;
 		while (itr.hasNext()) {
-			// TODO: make sampling multi-thread using executor service (configurable).
+			if (isCycleOverdue()) {
+				lastSkippedCount.addAndGet(entrySet.size() - mIdx);
+				break;
+			}
+			mIdx++;
 			Entry<ObjectName, MBeanInfo> entry = itr.next();
 			ObjectName name = entry.getKey();
 			MBeanInfo info = entry.getValue();
 
 			PropertySnapshot snapshot = new PropertySnapshot(name.getDomain(), name.getCanonicalName());
-			AttributeSample sample = createSample(activity, snapshot, mbeanServer, name, info);
-			try {
-				if (doPre(sample)) {
-					sample(sample); // obtain a sample
-					doPost(sample);
-					if (sample.isError()) {
-						doError(sample, OpLevel.WARNING);
+			if (!sampleMBean(activity, name, info, snapshot)) {
+				return pCount;
+			}
+			snapshot = filterDelta(name, rollup(name, snapshot));
+			if (snapshot != null && snapshot.size() > 0) {
+				pCount += snapshot.size();
+				addSnapshot(activity, snapshot);
+				if (itr.hasNext()) {
+					mBeanFinish(activity);
+				}
+			}
+		}
+		return pCount;
+	}
+
+	/**
+	 * Samples MBeans using bounded pool of sampling worker threads. MBeans set is split into partitions of subsequent
+	 * MBeans and each partition is sampled by a single worker task. When all tasks complete, produced snapshots are
+	 * merged into provided activity in the same order as MBeans are registered in handler, so activity contents does
+	 * not depend on worker threads scheduling.
+	 * <p>
+	 * If JMX connection gets lost while sampling, only snapshots of MBeans preceding the failed one are merged into
+	 * activity.
+	 *
+	 * @param activity
+	 *            instance where sampled MBean attributes are stored
+	 * @return number of metrics loaded from all MBeans
+	 */
+	private int sampleMBeansParallel(Activity activity) {
+		List<Entry<ObjectName, MBeanInfo>> entries = new ArrayList<>(mbeans.snapshot().entrySet());
+
+		int mCount = entries.size();
+		PropertySnapshot[] snapshots = new PropertySnapshot[mCount];
+		AtomicInteger lostIdx = new AtomicInteger(mCount);
+		AtomicBoolean connLost = new AtomicBoolean(false);
+
+		int partSize = Math.max(1, (mCount + samplingThreads * PARTITIONS_PER_THREAD - 1)
+				/ (samplingThreads * PARTITIONS_PER_THREAD));
+		ExecutorService executor = getSamplingExecutor();
+		List<Future<?>> tasks = new ArrayList<>(mCount / partSize + 1);
+		for (int from = 0; from < mCount; from += partSize) {
+			int pFrom = from;
+			int pTo = Math.min(from + partSize, mCount);
+			tasks.add(executor.submit(() -> {
+				for (int i = pFrom; i < pTo && !connLost.get(); i++) {
+					if (isCycleOverdue()) {
+						lastSkippedCount.addAndGet(pTo - i);
+						break;
 					}
-					if (sample.isError() && "ConnectException".equals(sample.getError().getClass().getSimpleName())) {
-						return pCount;
+					ObjectName name = entries.get(i).getKey();
+					MBeanInfo info = entries.get(i).getValue();
+
+					PropertySnapshot snapshot = new PropertySnapshot(name.getDomain(), name.getCanonicalName());
+					if (sampleMBean(activity, name, info, snapshot)) {
+						snapshots[i] = filterDelta(name, rollup(name, snapshot));
+					} else {
+						connLost.set(true);
+						lostIdx.accumulateAndGet(i, Math::min);
 					}
 				}
-			} catch (Throwable ex) {
-				doError(sample, ex, OpLevel.ERROR);
-			} finally {
-				excCount += sample.excludes().size();
-				evalAttrConditions(sample);
+			}));
+		}
+
+		for (Future<?> task : tasks) {
+			try {
+				task.get();
+			} catch (ExecutionException exc) {
+				doError(exc.getCause());
+			} catch (InterruptedException exc) {
+				Thread.currentThread().interrupt();
+				for (Future<?> t : tasks) {
+					t.cancel(true);
+				}
+				break;
 			}
-			if (snapshot.size() > 0) {
-				doComplete(activity, name, info, snapshot);
+		}
 
+		int pCount = 0;
+		int mergeCount = lostIdx.get();
+		for (int i = 0; i < mergeCount; i++) {
+			PropertySnapshot snapshot = snapshots[i];
+			if (snapshot != null && snapshot.size() > 0) {
 				pCount += snapshot.size();
-				activity.addSnapshot(snapshot);
-				if (itr.hasNext()) {
+				addSnapshot(activity, snapshot);
+				if (i < mergeCount - 1) {
 					mBeanFinish(activity);
 				}
 			}
@@ -269,15 +746,421 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 		return pCount;
 	}
 
+	/**
+	 * Samples single MBean attributes into provided snapshot running all bound listeners and conditions. This method
+	 * can be invoked concurrently by multiple sampling worker threads.
+	 *
+	 * @param activity
+	 *            instance where sampled MBean attributes are stored
+	 * @param name
+	 *            MBean object name
+	 * @param info
+	 *            MBean info
+	 * @param snapshot
+	 *            snapshot to put MBean attribute values
+	 * @return {@code false} if JMX connection got lost while sampling MBean, {@code true} - otherwise
+	 */
+	private boolean sampleMBean(Activity activity, ObjectName name, MBeanInfo info, PropertySnapshot snapshot) {
+		if (!isGroupDue(name) || isCoolingDown(name)) {
+			return true;
+		}
+		if (fetchingMBeans.contains(name)) { // previous timed out fetch is still running
+			lastSkippedCount.incrementAndGet();
+			return true;
+		}
+		if (adaptiveFrequency != null && adaptiveFrequency.isSkipped(name, getGroupCycle(name))) {
+			lastAdaptiveSkipCount.incrementAndGet();
+			return true;
+		}
+		AttributeSample sample = createSample(activity, snapshot, mbeanServer, name, info);
+		try {
+			if (doPre(sample)) {
+				if (fetchSample(sample)) { // obtain a sample
+					if (adaptiveFrequency != null && !sample.isError()) {
+						adaptiveFrequency.update(name, getGroupCycle(name), sample.get());
+					}
+					doPost(sample);
+				}
+				if (sample.isError()) {
+					doError(sample, OpLevel.WARNING);
+					if (deltaFilter != null) {
+						deltaFilter.reset(name);
+					}
+				}
+				if (sample.isError() && "ConnectException".equals(sample.getError().getClass().getSimpleName())) {
+					return false;
+				}
+			}
+		} catch (Throwable ex) {
+			doError(sample, ex, OpLevel.ERROR);
+		} finally {
+			excCount.addAndGet(sample.excludes().size());
+			evalAttrConditions(sample);
+		}
+		if (snapshot.size() > 0) {
+			doComplete(activity, name, info, snapshot);
+		}
+		return true;
+	}
+
+	/**
+	 * Puts sampled MBean snapshot into MBean metrics rollup buffers, when rollup mode is enabled (see
+	 * {@link #CFG_ROLLUP_PERIOD}). MBean snapshot having rolled up metrics is emitted only on last inner sampling cycle
+	 * of sampler period, even if MBean was not sampled in that cycle (e.g. its filter group was not due).
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @param snapshot
+	 *            sampled MBean snapshot
+	 * @return snapshot to emit, or {@code null} if there is nothing to emit in current sampling cycle
+	 *
+	 * @see RollupBuffers
+	 */
+	private PropertySnapshot rollup(ObjectName name, PropertySnapshot snapshot) {
+		if (rollups == null) {
+			return snapshot;
+		}
+		if (snapshot.size() > 0) {
+			rollups.add(name, snapshot);
+		}
+		return emitCycle ? rollups.rollup(name) : null;
+	}
+
+	/**
+	 * Emits rolled up metrics of all MBeans still having buffered snapshots on last inner sampling cycle of sampler
+	 * period, e.g. MBeans skipped because of sampling cycle deadline or lost JMX connection.
+	 *
+	 * @param activity
+	 *            instance where rolled up MBean snapshots are stored
+	 * @return number of emitted metrics
+	 */
+	private int flushRollups(Activity activity) {
+		if (rollups == null || !emitCycle) {
+			return 0;
+		}
+		int pCount = 0;
+		for (Map.Entry<ObjectName, PropertySnapshot> re : rollups.rollupAll().entrySet()) {
+			PropertySnapshot snapshot = filterDelta(re.getKey(), re.getValue());
+			if (snapshot != null && snapshot.size() > 0) {
+				mBeanFinish(activity);
+				pCount += snapshot.size();
+				addSnapshot(activity, snapshot);
+			}
+		}
+		return pCount;
+	}
+
+	/**
+	 * Filters sampled MBean snapshot to contain only properties changed since last emitted MBean snapshot, when delta
+	 * mode is enabled (see {@link #CFG_DELTA_KEYFRAME_INTERVAL}). Delta mode is not applied when aggregations are
+	 * active, since aggregators require complete MBean snapshots.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @param snapshot
+	 *            sampled MBean snapshot
+	 * @return snapshot to emit, or {@code null} if there is nothing to emit
+	 *
+	 * @see SnapshotDeltaFilter
+	 */
+	private PropertySnapshot filterDelta(ObjectName name, PropertySnapshot snapshot) {
+		if (deltaFilter == null || snapshot == null || snapshot.size() == 0 || AggregationsManager.isActive()) {
+			return snapshot;
+		}
+		return deltaFilter.filter(name, snapshot, keyframeCycle);
+	}
+
+	/**
+	 * Obtains MBean attribute values for provided sample. When MBean or sampling cycle timeout is configured, MBean
+	 * attributes are fetched asynchronously and fetch waits no longer than timeout left. MBean missing its deadline is
+	 * marked with {@link TimeoutException} error and, if configured, is put into cool-down for
+	 * {@link #CFG_TIMEOUT_COOL_DOWN} sampling cycles.
+	 * <p>
+	 * Asynchronous fetch samples private copy of provided sample, and sampled values are set to provided sample only if
+	 * fetch completes in time, so timed out fetch completing later can't alter provided sample. MBean is marked as being
+	 * fetched before fetch is submitted, and is not sampled again until its fetch completes or is cancelled before
+	 * start. MBean is skipped if all fetch threads are busy.
+	 *
+	 * @param sample
+	 *            MBean sample instance
+	 * @return {@code true} if MBean attribute values were obtained in time, {@code false} - if MBean sampling timed out
+	 * @throws Exception
+	 *             if exception occurs while sampling attribute values
+	 */
+	private boolean fetchSample(AttributeSample sample) throws Exception {
+		long timeoutNanos = getFetchTimeout();
+		if (timeoutNanos < 0) {
+			sample(sample);
+			return true;
+		}
+
+		ObjectName name = sample.getObjectName();
+		AttributeSample fetched = sample.copy();
+		AtomicBoolean started = new AtomicBoolean();
+		Future<AttributeList> fetch;
+		fetchingMBeans.add(name);
+		try {
+			fetch = getFetchExecutor().submit(() -> {
+				if (!started.compareAndSet(false, true)) { // cancelled before start
+					return null;
+				}
+				try {
+					return sample(fetched);
+				} finally {
+					fetchingMBeans.remove(name);
+				}
+			});
+		} catch (RejectedExecutionException exc) {
+			fetchingMBeans.remove(name);
+			lastSkippedCount.incrementAndGet();
+			return false;
+		}
+		try {
+			fetch.get(timeoutNanos, TimeUnit.NANOSECONDS);
+			sample.set(fetched);
+			return true;
+		} catch (TimeoutException exc) {
+			fetch.cancel(true);
+			if (started.compareAndSet(false, true)) { // fetch has not started and will not run
+				fetchingMBeans.remove(name);
+			}
+			timeoutCount.incrementAndGet();
+			lastTimeoutCount.incrementAndGet();
+			if (timeoutCoolDown > 0) {
+				coolDowns.put(name, getGroupCycle(name) + timeoutCoolDown);
+			}
+			sample.setError(new TimeoutException("MBean sampling timed out: mbean=" + sample.getObjectName()
+					+ ", timeout.ms=" + TimeUnit.NANOSECONDS.toMillis(timeoutNanos)));
+			return false;
+		} catch (ExecutionException exc) {
+			Throwable cause = exc.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			throw (Error) cause;
+		}
+	}
+
+	/**
+	 * Calculates MBean attributes fetch timeout, as minimum of configured MBean timeout and time left till sampling
+	 * cycle deadline.
+	 *
+	 * @return MBean attributes fetch timeout in nanoseconds, {@code -1} if no timeout is configured
+	 */
+	private long getFetchTimeout() {
+		long timeout = mbeanTimeout > 0 ? TimeUnit.MILLISECONDS.toNanos(mbeanTimeout) : -1;
+		if (cycleTimeout > 0) {
+			long left = Math.max(0, cycleDeadline - System.nanoTime());
+			timeout = timeout < 0 ? left : Math.min(timeout, left);
+		}
+		return timeout;
+	}
+
+	/**
+	 * Checks whether current sampling cycle deadline is reached.
+	 *
+	 * @return {@code true} if sampling cycle deadline is configured and reached, {@code false} - otherwise
+	 */
+	private boolean isCycleOverdue() {
+		return cycleTimeout > 0 && System.nanoTime() - cycleDeadline >= 0;
+	}
+
+	/**
+	 * Checks whether provided MBean is in cool-down after timed out sampling and shall be skipped in current sampling
+	 * cycle.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @return {@code true} if MBean sampling shall be skipped, {@code false} - otherwise
+	 */
+	private boolean isCoolingDown(ObjectName name) {
+		Long until = coolDowns.isEmpty() ? null : coolDowns.get(name);
+		if (until == null) {
+			return false;
+		}
+		if (getGroupCycle(name) <= until) {
+			return true;
+		}
+		coolDowns.remove(name);
+		return false;
+	}
+
+	/**
+	 * Returns MBean attributes fetch threads pool, creating new one if not yet initialized. Pool does not queue fetches
+	 * and is bounded to {@value #FETCH_THREADS_PER_WORKER} threads per sampling thread, since threads of hung MBean
+	 * fetches can't be reused until remote call completes. Fetch submitted when all pool threads are busy is rejected.
+	 *
+	 * @return MBean attributes fetch threads pool
+	 */
+	private synchronized ExecutorService getFetchExecutor() {
+		if (fetchExecutor == null) {
+			AtomicInteger threadIdx = new AtomicInteger();
+			String namePrefix = "SampleHandler-" + Integer.toHexString(hashCode()) + "-fetcher-";
+			fetchExecutor = new ThreadPoolExecutor(0, Math.max(1, samplingThreads) * FETCH_THREADS_PER_WORKER, 60L,
+					TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+						Thread t = new Thread(r, namePrefix + threadIdx.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					});
+		}
+		return fetchExecutor;
+	}
+
+	/**
+	 * Shuts down MBean attributes fetch threads pool, if such was initialized.
+	 *
+	 * @return shut down executor, or {@code null} if executor was not initialized
+	 */
+	private synchronized ExecutorService shutdownFetchExecutor() {
+		ExecutorService executor = fetchExecutor;
+		if (executor != null) {
+			executor.shutdownNow();
+			fetchExecutor = null;
+		}
+		return executor;
+	}
+
+	/**
+	 * Returns MBeans discovery thread executor, creating new one if not yet initialized.
+	 *
+	 * @return MBeans discovery thread executor
+	 */
+	private synchronized ExecutorService getDiscoveryExecutor() {
+		if (discoveryExecutor == null) {
+			String threadName = "SampleHandler-" + Integer.toHexString(hashCode()) + "-discovery";
+			discoveryExecutor = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, threadName);
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return discoveryExecutor;
+	}
+
+	/**
+	 * Shuts down MBeans discovery thread executor, if such was initialized.
+	 *
+	 * @return shut down executor, or {@code null} if executor was not initialized
+	 */
+	private synchronized ExecutorService shutdownDiscoveryExecutor() {
+		ExecutorService executor = discoveryExecutor;
+		if (executor != null) {
+			executor.shutdownNow();
+			discoveryExecutor = null;
+		}
+		return executor;
+	}
+
+	/**
+	 * Returns MBean infos fetch threads pool, creating new one if not yet initialized.
+	 *
+	 * @return MBean infos fetch threads pool
+	 */
+	private synchronized ExecutorService getInfoExecutor() {
+		if (infoExecutor == null) {
+			AtomicInteger threadIdx = new AtomicInteger();
+			String namePrefix = "SampleHandler-" + Integer.toHexString(hashCode()) + "-loader-";
+			infoExecutor = Executors.newFixedThreadPool(mbeanInfoThreads, r -> {
+				Thread t = new Thread(r, namePrefix + threadIdx.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return infoExecutor;
+	}
+
+	/**
+	 * Shuts down MBean infos fetch threads pool, if such was initialized.
+	 *
+	 * @return shut down executor, or {@code null} if executor was not initialized
+	 */
+	private synchronized ExecutorService shutdownInfoExecutor() {
+		ExecutorService executor = infoExecutor;
+		if (executor != null) {
+			executor.shutdownNow();
+			infoExecutor = null;
+		}
+		return executor;
+	}
+
+	/**
+	 * Returns sampling worker threads pool, creating new one if not yet initialized.
+	 *
+	 * @return sampling worker threads pool
+	 */
+	private synchronized ExecutorService getSamplingExecutor() {
+		if (samplingExecutor == null) {
+			AtomicInteger threadIdx = new AtomicInteger();
+			String namePrefix = "SampleHandler-" + Integer.toHexString(hashCode()) + "-worker-";
+			samplingExecutor = Executors.newFixedThreadPool(samplingThreads, r -> {
+				Thread t = new Thread(r, namePrefix + threadIdx.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return samplingExecutor;
+	}
+
+	/**
+	 * Shuts down sampling worker threads pool, if such was initialized.
+	 *
+	 * @return shut down executor, or {@code null} if executor was not initialized
+	 */
+	private synchronized ExecutorService shutdownSamplingExecutor() {
+		ExecutorService executor = samplingExecutor;
+		if (executor != null) {
+			executor.shutdownNow();
+			samplingExecutor = null;
+		}
+		return executor;
+	}
+
+	/**
+	 * Obtain single threaded executor used to handle MBean registration notifications off the sampling path.
+	 * Executor is initialized on first call.
+	 *
+	 * @return MBean registration notifications executor
+	 */
+	private synchronized ExecutorService getRegistrarExecutor() {
+		if (registrarExecutor == null) {
+			String threadName = "SampleHandler-" + Integer.toHexString(hashCode()) + "-registrar";
+			registrarExecutor = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, threadName);
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return registrarExecutor;
+	}
+
+	/**
+	 * Shuts down MBean registration notifications executor, if such was initialized.
+	 *
+	 * @return shut down executor, or {@code null} if executor was not initialized
+	 */
+	private synchronized ExecutorService shutdownRegistrarExecutor() {
+		ExecutorService executor = registrarExecutor;
+		if (executor != null) {
+			executor.shutdownNow();
+			registrarExecutor = null;
+		}
+		return executor;
+	}
+
 	/**
 	 * Processes sampled MBean snapshots batch. If activity contained snapshots count is greater or equal to configured
-	 * batch size, then all snapshots are drained from provided activity and posted. Configured batch size equal to
-	 * {@code -1} means not to perform batching.
+	 * batch size, or activity contained snapshots estimated payload size is greater or equal to target batch payload
+	 * size (see {@link #CFG_BATCH_BYTES}), then all snapshots are drained from provided activity and posted. Configured
+	 * batch size equal to {@code -1} and batch payload size equal to {@code 0} means not to perform batching. Batch
+	 * payload size overflow is prevented when snapshot is added (see {@link #addSnapshot(Activity, PropertySnapshot)}),
+	 * so this check completes batches reaching target payload size.
 	 * <p>
 	 * If aggregations are active, then batch processing is skipped.
 	 * 
 	 * @param activity
 	 *            activity instance for batch processing
+	 *
+	 * @see BatchSizer
 	 */
 	protected void mBeanFinish(Activity activity) {
 		if (AggregationsManager.isActive()) {
@@ -285,14 +1168,62 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 		}
 
 		int snapCount = activity.getSnapshotCount();
-		if (batchSize >= 0 && snapCount > 0 && snapCount >= batchSize) {
-			TrackingActivity tActivity = (TrackingActivity) activity;
-			TrackingActivity cActivity = cloneActivity(tActivity);
-			activity.getSnapshots().clear();
+		if (snapCount > 0 && ((batchSize >= 0 && snapCount >= batchSize)
+				|| (batchSizer != null && batchSizer.isFull(pendingBytes)))) {
+			postBatch(activity);
+		}
+	}
+
+	/**
+	 * Adds sampled MBean snapshot to provided activity. When byte budgeted batching is enabled (see
+	 * {@link #CFG_BATCH_BYTES}) and adding snapshot would make activity contained snapshots estimated payload size
+	 * exceed target batch payload size, snapshots already contained by activity are posted before snapshot is added.
+	 *
+	 * @param activity
+	 *            activity instance to add snapshot
+	 * @param snapshot
+	 *            sampled MBean snapshot
+	 */
+	private void addSnapshot(Activity activity, PropertySnapshot snapshot) {
+		if (batchSizer != null) {
+			long snapBytes = BatchSizer.estimate(snapshot);
+			if (pendingBytes > 0 && batchSizer.isExceeded(pendingBytes + snapBytes)
+					&& !AggregationsManager.isActive()) {
+				postBatch(activity);
+			}
+			pendingBytes += snapBytes;
+		}
+		activity.addSnapshot(snapshot);
+	}
+
+	/**
+	 * Drains all snapshots from provided activity and posts them as single batch.
+	 *
+	 * @param activity
+	 *            activity instance for batch processing
+	 */
+	private void postBatch(Activity activity) {
+		TrackingActivity tActivity = (TrackingActivity) activity;
+		TrackingActivity cActivity = cloneActivity(tActivity);
+		activity.getSnapshots().clear();
+		if (batchSizer == null) {
 			postActivityBatch(cActivity);
+		} else {
+			long batchBytes = pendingBytes;
+			pendingBytes = 0;
+			postActivityBatch(cActivity, postNanos -> batchSizer.posted(batchBytes, postNanos));
 		}
 	}
 
+	/**
+	 * Suppresses posting of current sampling cycle activity.
+	 */
+	protected void suppressPost() {
+		SchedulerImpl schedulerImpl = (SchedulerImpl) scheduler;
+		SampleActivityTask activityTask = schedulerImpl.getActivityTask();
+		activityTask.suppressPost();
+	}
+
 	/**
 	 * Posts provided tracking activity.
 	 * 
@@ -300,9 +1231,25 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 *            activity to post
 	 */
 	protected void postActivityBatch(TrackingActivity tActivity) {
+		postActivityBatch(tActivity, null);
+	}
+
+	/**
+	 * Posts provided tracking activity and reports actual activity posting time to provided callback. When posting
+	 * queue is enabled, callback is invoked by posting worker thread, so posting time does not include activity hand
+	 * off and queue wait time.
+	 *
+	 * @param tActivity
+	 *            activity to post
+	 * @param postedCallback
+	 *            callback consuming activity posting time in nanoseconds, or {@code null} if not needed
+	 *
+	 * @see SampleActivityTask#postActivity(TrackingActivity, LongConsumer)
+	 */
+	protected void postActivityBatch(TrackingActivity tActivity, LongConsumer postedCallback) {
 		SchedulerImpl schedulerImpl = (SchedulerImpl) scheduler;
 		SampleActivityTask activityTask = schedulerImpl.getActivityTask();
-		activityTask.postActivity(tActivity);
+		activityTask.postActivity(tActivity, postedCallback);
 	}
 
 	/**
@@ -359,11 +1306,30 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 * 
 	 * @see com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeSample#newAttributeSample(com.jkoolcloud.tnt4j.core.Activity,
 	 *      com.jkoolcloud.tnt4j.core.PropertySnapshot, com.jkoolcloud.tnt4j.stream.jmx.core.JMXServerConnection,
-	 *      javax.management.ObjectName, javax.management.MBeanInfo)
+	 *      com.jkoolcloud.tnt4j.stream.jmx.conditions.SamplingPlan)
 	 */
 	protected AttributeSample createSample(Activity activity, PropertySnapshot snapshot,
 			JMXServerConnection mbeanServer, ObjectName name, MBeanInfo info) {
-		return AttributeSample.newAttributeSample(activity, snapshot, mbeanServer, name, info);
+		return AttributeSample.newAttributeSample(activity, snapshot, mbeanServer, getSamplingPlan(name, info));
+	}
+
+	/**
+	 * Obtain cached sampling plan for provided MBean. Plan is (re)built when there is no plan cached for MBean yet, or
+	 * cached plan was built from different MBean info instance.
+	 *
+	 * @param name
+	 *            MBean object name reference
+	 * @param info
+	 *            MBean info
+	 * @return MBean sampling plan
+	 */
+	protected SamplingPlan getSamplingPlan(ObjectName name, MBeanInfo info) {
+		SamplingPlan plan = plans.get(name);
+		if (plan == null || !plan.isPlanOf(info)) {
+			plan = new SamplingPlan(name, info);
+			plans.put(name, plan);
+		}
+		return plan;
 	}
 
 	/**
@@ -382,19 +1348,25 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	}
 
 	/**
-	 * Run and evaluate all registered conditions and invoke associated {@link AttributeAction} instances.
+	 * Run and evaluate registered conditions applicable to sampled MBean and invoke associated {@link AttributeAction}
+	 * instances.
 	 * 
 	 * @param sample
 	 *            MBean sample instance
 	 * @see AttributeSample
+	 * @see AttributeCondition#getObjectName()
 	 */
 	protected void evalAttrConditions(AttributeSample sample) {
-		for (Map.Entry<AttributeCondition, AttributeAction> entry : conditions.entrySet()) {
-			if (entry.getKey().evaluate(sample)) {
-				totalActionCount++;
-				entry.getValue().action(context, entry.getKey(), sample);
-			}
+		ConditionIndex cIndex = conditionIndex;
+		if (cIndex.isEmpty()) {
+			return;
 		}
+		cIndex.forEach(sample.getObjectName(), entry -> {
+			if (entry.condition.evaluate(sample)) {
+				totalActionCount.incrementAndGet();
+				entry.action.action(context, entry.condition, sample);
+			}
+		});
 	}
 
 	/**
@@ -410,15 +1382,40 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 		PropertySnapshot snapshot = new PropertySnapshot(activity.getName(), "SampleContext");
 		snapshot.add(STAT_NOOP_COUNT, noopCount);
 		snapshot.add(STAT_SAMPLE_COUNT, sampleCount);
-		snapshot.add(STAT_TOTAL_ERROR_COUNT, errorCount);
-		snapshot.add(STAT_TOTAL_EXCLUDE_COUNT, excCount);
+		snapshot.add(STAT_TOTAL_ERROR_COUNT, errorCount.get());
+		snapshot.add(STAT_TOTAL_EXCLUDE_COUNT, excCount.get());
 		snapshot.add(STAT_MBEAN_COUNT, mbeans.size());
 		snapshot.add(STAT_CONDITION_COUNT, conditions.size());
-		snapshot.add(STAT_LISTENER_COUNT, listeners.size());
-		snapshot.add(STAT_TOTAL_ACTION_COUNT, totalActionCount);
+		snapshot.add(STAT_LISTENER_COUNT, listeners.length);
+		snapshot.add(STAT_TOTAL_ACTION_COUNT, totalActionCount.get());
 		snapshot.add(STAT_TOTAL_METRIC_COUNT, totalMetricCount);
 		snapshot.add(STAT_LAST_METRIC_COUNT, lastMetricCount);
 		snapshot.add(STAT_SAMPLE_TIME_USEC, lastSampleTimeUsec);
+		snapshot.add(STAT_SAMPLING_THREADS, samplingThreads);
+		snapshot.add(STAT_TOTAL_TIMEOUT_COUNT, timeoutCount.get());
+		snapshot.add(STAT_LAST_TIMEOUT_COUNT, lastTimeoutCount.get());
+		snapshot.add(STAT_LAST_SKIPPED_COUNT, lastSkippedCount.get());
+		snapshot.add(STAT_COOL_DOWN_COUNT, coolDowns.size());
+		snapshot.add(STAT_FILTER_GROUP_COUNT, filterGroups.size());
+		snapshot.add(STAT_DELTA_KEYFRAME_INTERVAL, deltaKeyframeInterval);
+		snapshot.add(STAT_ROLLUP_INTERVAL, rollupInterval);
+		snapshot.add(STAT_ROLLUP_SERIES_COUNT, rollups == null ? 0 : rollups.getSeriesCount());
+		snapshot.add(STAT_METRIC_KEYS_COUNT, MetricKeyDictionary.getInstance().size());
+		snapshot.add(STAT_MBEAN_INFO_CACHE_HIT_COUNT, infoCacheHitCount.get());
+		snapshot.add(STAT_DISCOVERY_PROGRESS, getDiscoveryProgress());
+		snapshot.add(STAT_BATCH_BYTES_TARGET, batchSizer == null ? 0 : batchSizer.getTargetBytes());
+		PostingQueue postingQueue = ((SchedulerImpl) scheduler).getActivityTask().getPostingQueue();
+		if (postingQueue != null) {
+			snapshot.add(STAT_POST_QUEUE_DEPTH, postingQueue.getDepth());
+			snapshot.add(STAT_POST_QUEUE_MAX_WAIT_USEC, postingQueue.takeMaxWaitUsec());
+			snapshot.add(STAT_POST_QUEUE_DROP_COUNT, postingQueue.getDroppedCount());
+			snapshot.add(STAT_POST_QUEUE_SPILL_COUNT, postingQueue.getSpilledCount());
+		}
+		snapshot.add(STAT_MBEAN_INFO_POOL_SIZE, MBeanInfoPool.size());
+		snapshot.add(STAT_ADAPTIVE_MAX_INTERVAL, adaptiveMaxInterval);
+		snapshot.add(STAT_LAST_ADAPTIVE_SKIP_COUNT, lastAdaptiveSkipCount.get());
+		snapshot.add(STAT_ADAPTIVE_BACKED_OFF_COUNT,
+				adaptiveFrequency == null ? 0 : adaptiveFrequency.getBackedOffCount());
 
 		// get custom statistics
 		Map<String, Object> stats = new HashMap<>();
@@ -452,10 +1449,25 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 			try {
 				long started = System.nanoTime();
 				sampleCount++;
+				lastTimeoutCount.set(0);
+				lastSkippedCount.set(0);
+				lastAdaptiveSkipCount.set(0);
+				emitCycle = sampleCount % rollupInterval == 0;
+				if (emitCycle) {
+					emitCount++;
+				}
+				keyframeCycle = deltaFilter == null || deltaFilter.isKeyframeCycle(emitCount);
+				cycleDeadline = started + TimeUnit.MILLISECONDS.toNanos(cycleTimeout);
 				lastMetricCount = sampleMBeans(activity);
+				lastMetricCount += flushRollups(activity);
 				totalMetricCount += lastMetricCount;
 				lastSampleTimeUsec = (System.nanoTime() - started) / 1000;
 
+				if (!emitCycle) {
+					// inner rollup cycle: metrics are buffered, nothing to post
+					suppressPost();
+					return;
+				}
 				// run post listeners
 				runPost(activity);
 				if (activity.isNoop()) {
@@ -480,13 +1492,15 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 		lock.lock();
 		try {
 			sampleCount = 0;
+			emitCount = 0;
 			totalMetricCount = 0;
-			totalActionCount = 0;
+			totalActionCount.set(0);
 			lastMetricCount = 0;
 			lastSampleTimeUsec = 0;
 			noopCount = 0;
-			excCount = 0;
-			errorCount = 0;
+			excCount.set(0);
+			errorCount.set(0);
+			timeoutCount.set(0);
 			lastError = null;
 			return context;
 		} finally {
@@ -502,10 +1516,8 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 *            MBean object name
 	 */
 	private void runRegister(ObjectName name) {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.register(context, name);
-			}
+		for (SampleListener lst : listeners) {
+			lst.register(context, name);
 		}
 	}
 
@@ -517,10 +1529,8 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 *            MBean object name
 	 */
 	private void runUnRegister(ObjectName name) {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.unregister(context, name);
-			}
+		for (SampleListener lst : listeners) {
+			lst.unregister(context, name);
 		}
 	}
 
@@ -532,10 +1542,8 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 *            sampling activity instance
 	 */
 	private void runPost(Activity activity) {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.post(context, activity);
-			}
+		for (SampleListener lst : listeners) {
+			lst.post(context, activity);
 		}
 	}
 
@@ -547,10 +1555,8 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 *            sampling activity instance
 	 */
 	private void runPre(Activity activity) {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.pre(context, activity);
-			}
+		for (SampleListener lst : listeners) {
+			lst.pre(context, activity);
 		}
 	}
 
@@ -563,10 +1569,8 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 *            current attribute sample instance
 	 */
 	private boolean doPre(AttributeSample sample) {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.pre(context, sample);
-			}
+		for (SampleListener lst : listeners) {
+			lst.pre(context, sample);
 		}
 		return sample.hasAttributesToSample();
 	}
@@ -582,10 +1586,8 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 *             if attribute value can not be resolved
 	 */
 	private void doPost(AttributeSample sample) throws UnsupportedAttributeException {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.post(context, sample);
-			}
+		for (SampleListener lst : listeners) {
+			lst.post(context, sample);
 		}
 	}
 
@@ -604,10 +1606,8 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 *            MBean attribute values snapshot
 	 */
 	private void doComplete(Activity activity, ObjectName name, MBeanInfo info, Snapshot snapshot) {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.complete(context, activity, name, info, snapshot);
-			}
+		for (SampleListener lst : listeners) {
+			lst.complete(context, activity, name, info, snapshot);
 		}
 	}
 
@@ -639,12 +1639,10 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 *            error severity level
 	 */
 	private void doError(AttributeSample sample, OpLevel level) {
-		errorCount++;
+		errorCount.incrementAndGet();
 		lastError = sample.getError();
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.error(context, sample, level);
-			}
+		for (SampleListener lst : listeners) {
+			lst.error(context, sample, level);
 		}
 	}
 
@@ -656,12 +1654,10 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 *            exception associated with the error
 	 */
 	private void doError(Throwable ex) {
-		errorCount++;
+		errorCount.incrementAndGet();
 		lastError = ex;
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.error(context, ex);
-			}
+		for (SampleListener lst : listeners) {
+			lst.error(context, ex);
 		}
 	}
 
@@ -673,16 +1669,17 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 	 *            map of key/value statistics
 	 */
 	private void doStats(Map<String, Object> stats) {
-		synchronized (this.listeners) {
-			for (SampleListener lst : listeners) {
-				lst.getStats(context, stats);
-			}
+		for (SampleListener lst : listeners) {
+			lst.getStats(context, stats);
 		}
 	}
 
 	@Override
 	public SampleHandler register(AttributeCondition cond, AttributeAction action) {
-		conditions.put(cond, (action == null ? NoopAction.NOOP : action));
+		synchronized (conditions) {
+			conditions.put(cond, (action == null ? NoopAction.NOOP : action));
+			conditionIndex = new ConditionIndex(conditions);
+		}
 		return this;
 	}
 
@@ -694,16 +1691,21 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 
 	@Override
 	public SampleHandler addListener(SampleListener listener) {
-		synchronized (this.listeners) {
-			listeners.add(listener);
+		synchronized (listenersLock) {
+			SampleListener[] lArray = Arrays.copyOf(listeners, listeners.length + 1);
+			lArray[lArray.length - 1] = listener;
+			listeners = lArray;
 			return this;
 		}
 	}
 
 	@Override
 	public SampleHandler removeListener(SampleListener listener) {
-		synchronized (this.listeners) {
-			listeners.remove(listener);
+		synchronized (listenersLock) {
+			List<SampleListener> lList = new ArrayList<>(Arrays.asList(listeners));
+			if (lList.remove(listener)) {
+				listeners = lList.toArray(NO_LISTENERS);
+			}
 			return this;
 		}
 	}
@@ -719,40 +1721,122 @@ public class SampleHandlerImpl implements SampleHandler, NotificationListener {
 			String eType = notification.getType();
 			MBeanServerNotification mbeanEvent = (MBeanServerNotification) notification;
 			ObjectName mBeanName = mbeanEvent.getMBeanName();
-			lock.lock();
 			try {
 				if (eType.equalsIgnoreCase(MBeanServerNotification.REGISTRATION_NOTIFICATION)) {
-					try {
-						if (isFilterIncluded(mBeanName)) {
-							mbeans.put(mBeanName, mbeanServer.getMBeanInfo(mBeanName));
-							runRegister(mBeanName);
-						}
-					} catch (Throwable ex) {
-						doError(ex);
-					}
+					getRegistrarExecutor().execute(() -> registerMBean(mBeanName));
 				} else if (eType.equalsIgnoreCase(MBeanServerNotification.UNREGISTRATION_NOTIFICATION)) {
-					mbeans.remove(mBeanName);
-					runUnRegister(mBeanName);
+					getRegistrarExecutor().execute(() -> unregisterMBean(mBeanName));
 				}
-			} finally {
-				lock.unlock();
+			} catch (RejectedExecutionException exc) {
+				// handler is being cleaned up
 			}
 		}
 	}
 
+	/**
+	 * Registers MBean for sampling, if it matches handler include/exclude filters. MBean info is fetched from MBean
+	 * server by MBean registration notifications handling thread, so sampling cycle is not blocked. Listeners are
+	 * notified only when MBean was not registered yet, e.g. by MBeans discovery running concurrently.
+	 *
+	 * @param mBeanName
+	 *            registered MBean object name
+	 */
+	private void registerMBean(ObjectName mBeanName) {
+		try {
+			if (isFilterIncluded(mBeanName)) {
+				if (!filterGroups.isEmpty()) {
+					putGroupInterval(mBeanName);
+				}
+				plans.remove(mBeanName);
+				unregisteredMBeans.remove(mBeanName);
+				if (putMBean(mBeanName, mbeanServer.getMBeanInfo(mBeanName))) {
+					runRegister(mBeanName);
+				}
+			}
+		} catch (Throwable ex) {
+			doError(ex);
+		}
+	}
+
+	/**
+	 * Removes MBean from sampled MBeans registry.
+	 *
+	 * @param mBeanName
+	 *            unregistered MBean object name
+	 */
+	private void unregisterMBean(ObjectName mBeanName) {
+		if (discovering) {
+			unregisteredMBeans.add(mBeanName);
+		}
+		mbeans.remove(mBeanName);
+		plans.remove(mBeanName);
+		coolDowns.remove(mBeanName);
+		groupIntervals.remove(mBeanName);
+		if (deltaFilter != null) {
+			deltaFilter.reset(mBeanName);
+		}
+		if (adaptiveFrequency != null) {
+			adaptiveFrequency.remove(mBeanName);
+		}
+		if (rollups != null) {
+			rollups.remove(mBeanName);
+		}
+		runUnRegister(mBeanName);
+	}
+
 	@Override
 	public void cleanup() {
+		awaitTermination(shutdownSamplingExecutor(), shutdownRegistrarExecutor(), shutdownDiscoveryExecutor(),
+				shutdownInfoExecutor(), shutdownFetchExecutor());
 		lock.lock();
 		try {
 			eFilters.clear();
-			conditions.clear();
-			mbeans.clear();
-			synchronized (this.listeners) {
-				listeners.clear();
+			synchronized (conditions) {
+				conditions.clear();
+				conditionIndex = ConditionIndex.EMPTY;
+			}
+			mbeans.close();
+			unregisteredMBeans.clear();
+			plans.clear();
+			coolDowns.clear();
+			groupIntervals.clear();
+			if (deltaFilter != null) {
+				deltaFilter.clear();
+			}
+			if (adaptiveFrequency != null) {
+				adaptiveFrequency.clear();
+			}
+			if (rollups != null) {
+				rollups.clear();
+			}
+			synchronized (listenersLock) {
+				listeners = NO_LISTENERS;
 			}
 		} finally {
 			lock.unlock();
 		}
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Waits for shut down executors to terminate, no longer than {@value #TERMINATION_TIMEOUT}ms in total. Executor
+	 * threads blocked by remote calls may not terminate in time, so MBeans registry is closed to not accept MBeans from
+	 * such threads.
+	 *
+	 * @param executors
+	 *            shut down executors, {@code null} entries are ignored
+	 */
+	private static void awaitTermination(ExecutorService... executors) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TERMINATION_TIMEOUT);
+		for (ExecutorService executor : executors) {
+			if (executor == null) {
+				continue;
+			}
+			try {
+				executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			} catch (InterruptedException exc) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+}
@@ -27,12 +27,15 @@ import com.jkoolcloud.tnt4j.config.TrackerConfig;
 import com.jkoolcloud.tnt4j.config.TrackerConfigStore;
 import com.jkoolcloud.tnt4j.core.ActivityListener;
 import com.jkoolcloud.tnt4j.core.OpLevel;
+import com.jkoolcloud.tnt4j.sink.EventSink;
 import com.jkoolcloud.tnt4j.stream.jmx.SamplingAgent;
 import com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeAction;
 import com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeCondition;
 import com.jkoolcloud.tnt4j.stream.jmx.conditions.SampleHandler;
 import com.jkoolcloud.tnt4j.stream.jmx.core.Sampler;
 import com.jkoolcloud.tnt4j.stream.jmx.factory.SamplerFactory;
+import com.jkoolcloud.tnt4j.stream.jmx.utils.LoggerUtils;
+import com.jkoolcloud.tnt4j.utils.Utils;
 
 /**
  * <p>
@@ -43,12 +46,17 @@ import com.jkoolcloud.tnt4j.stream.jmx.factory.SamplerFactory;
  * @version $Revision: 1 $
  */
 public class SchedulerImpl extends ActivityScheduler implements Scheduler {
+	private static final EventSink LOGGER = LoggerUtils.getLoggerSink(SchedulerImpl.class);
+
 	protected SampleHandler listener;
 	protected long initDelay;
 	protected long period;
 	protected TimeUnit timeUnit;
 
 	protected SampleActivityTask task;
+	private final int postQueueSize;
+	private final PostingQueue.OverflowPolicy postQueuePolicy;
+	private PostingQueue postingQueue;
 
 	/**
 	 * Create new instance of {@code SchedulerImpl} with a given name, MBean server, filter list and sampling period.
@@ -65,8 +73,11 @@ public class SchedulerImpl extends ActivityScheduler implements Scheduler {
 		this.listener = (SampleHandler) this.getListener();
 		this.listener.setScheduler(this);
 		this.initDelay = ((Number) samplerCfg.get(Sampler.CFG_INITIAL_DELAY)).longValue();
-		this.period = ((Number) samplerCfg.get(Sampler.CFG_SAMPLING_PERIOD)).longValue();
+		this.period = getTickPeriod(samplerCfg);
 		this.timeUnit = (TimeUnit) samplerCfg.get(Sampler.CFG_TIME_UNIT);
+		this.postQueueSize = Utils.getInt(SampleHandler.CFG_POST_QUEUE_SIZE, samplerCfg, 0);
+		this.postQueuePolicy = PostingQueue.OverflowPolicy
+				.of(Utils.getString(SampleHandler.CFG_POST_QUEUE_POLICY, samplerCfg, null));
 	}
 
 	/**
@@ -86,8 +97,44 @@ public class SchedulerImpl extends ActivityScheduler implements Scheduler {
 		this.listener = (SampleHandler) this.getListener();
 		this.listener.setScheduler(this);
 		this.initDelay = ((Number) samplerCfg.get(Sampler.CFG_INITIAL_DELAY)).longValue();
-		this.period = ((Number) samplerCfg.get(Sampler.CFG_SAMPLING_PERIOD)).longValue();
+		this.period = getTickPeriod(samplerCfg);
 		this.timeUnit = (TimeUnit) samplerCfg.get(Sampler.CFG_TIME_UNIT);
+		this.postQueueSize = Utils.getInt(SampleHandler.CFG_POST_QUEUE_SIZE, samplerCfg, 0);
+		this.postQueuePolicy = PostingQueue.OverflowPolicy
+				.of(Utils.getString(SampleHandler.CFG_POST_QUEUE_POLICY, samplerCfg, null));
+	}
+
+	/**
+	 * Determines scheduler tick period. When sampler configuration defines MBean filter groups, tick period is
+	 * greatest common divisor of all filter groups sampling periods, otherwise it is sampler sampling period. When
+	 * metrics rollup mode is enabled, tick period also divides effective rollup (inner) period, while sampler sampling
+	 * period remains rolled up metrics emission (outer) period. Filter group periods are rounded to multiples of
+	 * minimal tick period, so tick period is never shorter than minimal tick period.
+	 *
+	 * @param samplerCfg
+	 *            sampler configuration map
+	 * @return scheduler tick period
+	 *
+	 * @see FilterGroup#getTickPeriod(java.util.List, long)
+	 * @see SampleHandler#CFG_ROLLUP_PERIOD
+	 * @see RollupBuffers#getInnerPeriod(long, long)
+	 */
+	protected static long getTickPeriod(Map<String, ?> samplerCfg) {
+		long period = ((Number) samplerCfg.get(Sampler.CFG_SAMPLING_PERIOD)).longValue();
+		Number rollupPeriod = (Number) samplerCfg.get(SampleHandler.CFG_ROLLUP_PERIOD);
+		long innerPeriod = rollupPeriod == null ? 0 : RollupBuffers.getInnerPeriod(rollupPeriod.longValue(), period);
+		String groupsDef = (String) samplerCfg.get(SampleHandler.CFG_FILTER_GROUPS);
+		long tick = FilterGroup.getTickPeriod(
+				FilterGroup.parse(groupsDef, period, FilterGroup.getMinTickPeriod(period, innerPeriod)), period);
+		if (innerPeriod > 0) {
+			tick = FilterGroup.gcd(tick, innerPeriod);
+		}
+		if (tick != period) {
+			LOGGER.log(OpLevel.INFO,
+					"Effective scheduler tick period: tick.period={0}, sampling.period={1}, filter.groups={2}, inner.period={3}",
+					tick, period, groupsDef, innerPeriod);
+		}
+		return tick;
 	}
 
 	/**
@@ -139,6 +186,12 @@ public class SchedulerImpl extends ActivityScheduler implements Scheduler {
 	@Override
 	protected Runnable newActivityTask(TrackingLogger lg, String name, OpLevel level) {
 		task = new SampleActivityTask(lg, name, (level == null ? getOpLevel() : level));
+		if (postQueueSize > 0) {
+			if (postingQueue == null) {
+				postingQueue = new PostingQueue(name + "-poster", postQueueSize, postQueuePolicy, lg::tnt);
+			}
+			task.setPostingQueue(postingQueue);
+		}
 
 		return task;
 	}
@@ -155,6 +208,9 @@ public class SchedulerImpl extends ActivityScheduler implements Scheduler {
 	@Override
 	public void close() {
 		super.close();
+		if (postingQueue != null) {
+			postingQueue.close();
+		}
 		if (SamplingAgent.getAllSamplers().isEmpty()) {
 			TrackingLogger.shutdown(getLogger());
 		}
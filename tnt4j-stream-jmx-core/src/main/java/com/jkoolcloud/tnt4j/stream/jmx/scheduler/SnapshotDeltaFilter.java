@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.ObjectName;
+
+import com.jkoolcloud.tnt4j.core.Property;
+import com.jkoolcloud.tnt4j.core.PropertySnapshot;
+import com.jkoolcloud.tnt4j.stream.jmx.core.MetricColumns;
+import com.jkoolcloud.tnt4j.stream.jmx.utils.Utils;
+
+/**
+ * <p>
+ * This class defines change-only (delta) MBean snapshots filter. Filter keeps last emitted value of every MBean
+ * snapshot property (numeric values are kept unboxed, see {@link MetricColumns}) and produces snapshots having only
+ * changed properties. Full snapshot (keyframe) is produced every
+ * configured number of sampling cycles, for newly sampled MBeans and after MBean sampling errors.
+ * </p>
+ * <p>
+ * Every produced snapshot is marked with {@value #FRAME_PROP} property, having value {@value #FRAME_KEY} for keyframes
+ * and {@value #FRAME_DELTA} for delta snapshots. MBean identifying properties ({@code ObjectName} and object name key
+ * properties) and transient properties are always retained. Delta snapshot having no changed properties is dropped.
+ * </p>
+ *
+ * @version $Revision: 1 $
+ */
+public final class SnapshotDeltaFilter {
+	/**
+	 * Snapshot property name marking snapshot frame type.
+	 */
+	public static final String FRAME_PROP = "SampleFrame";
+	/**
+	 * Full snapshot (keyframe) frame type value.
+	 */
+	public static final String FRAME_KEY = "key";
+	/**
+	 * Change-only snapshot frame type value.
+	 */
+	public static final String FRAME_DELTA = "delta";
+
+	private final int keyframeInterval;
+	private final Map<ObjectName, MetricColumns> lastValues = new ConcurrentHashMap<>(89);
+
+	/**
+	 * Create delta snapshots filter.
+	 *
+	 * @param keyframeInterval
+	 *            number of sampling cycles between keyframes
+	 */
+	SnapshotDeltaFilter(int keyframeInterval) {
+		this.keyframeInterval = keyframeInterval;
+	}
+
+	/**
+	 * Checks whether provided sampling cycle is keyframe cycle.
+	 *
+	 * @param cycle
+	 *            sampling cycle number, starting from {@code 1}
+	 * @return {@code true} if all MBeans shall emit keyframes in provided cycle, {@code false} - otherwise
+	 */
+	boolean isKeyframeCycle(long cycle) {
+		return (cycle - 1) % keyframeInterval == 0;
+	}
+
+	/**
+	 * Filters provided MBean snapshot.
+	 *
+	 * @param name
+	 *            MBean object name
+	 * @param snapshot
+	 *            MBean sampled snapshot
+	 * @param keyframe
+	 *            flag indicating to produce keyframe
+	 * @return filtered snapshot, or {@code null} if MBean snapshot has no changed properties
+	 */
+	PropertySnapshot filter(ObjectName name, PropertySnapshot snapshot, boolean keyframe) {
+		MetricColumns values = lastValues.get(name);
+		if (values == null) {
+			values = new MetricColumns(snapshot.size());
+			lastValues.put(name, values);
+			keyframe = true;
+		}
+
+		if (keyframe) {
+			for (Property prop : snapshot.getProperties()) {
+				values.set(values.add(prop.getKey()), prop.getValue(), 0);
+			}
+			snapshot.add(FRAME_PROP, FRAME_KEY);
+			return snapshot;
+		}
+
+		PropertySnapshot delta = new PropertySnapshot(snapshot.getCategory(), snapshot.getName());
+		int changed = 0;
+		for (Property prop : snapshot.getProperties()) {
+			String key = prop.getKey();
+			if (prop.isTransient() || isIdentityProperty(name, key)) {
+				delta.add(prop);
+			} else if (values.set(values.add(key), prop.getValue(), 0)) {
+				delta.add(prop);
+				changed++;
+			}
+		}
+
+		if (changed == 0) {
+			return null;
+		}
+		delta.add(FRAME_PROP, FRAME_DELTA);
+		return delta;
+	}
+
+	private static boolean isIdentityProperty(ObjectName name, String key) {
+		return Utils.OBJ_NAME_PROP.equals(key) || name.getKeyProperty(key) != null
+				|| (key.endsWith("_") && name.getKeyProperty(key.substring(0, key.length() - 1)) != null);
+	}
+
+	/**
+	 * Resets provided MBean emitted values, so next MBean snapshot is emitted as keyframe.
+	 *
+	 * @param name
+	 *            MBean object name
+	 */
+	void reset(ObjectName name) {
+		lastValues.remove(name);
+	}
+
+	/**
+	 * Resets all MBeans emitted values.
+	 */
+	void clear() {
+		lastValues.clear();
+	}
+}
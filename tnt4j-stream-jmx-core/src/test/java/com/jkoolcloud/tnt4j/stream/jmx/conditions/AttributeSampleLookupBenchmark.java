@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jkoolcloud.tnt4j.stream.jmx.conditions;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares {@link AttributeSample#getValue(String)} indexed lookup against former linear scan of sampled attributes
+ * list, when many conditions are evaluated against MBean having many attributes. Each invocation simulates one
+ * sampling cycle of single MBean: new sample is taken and every condition looks up its attribute value.
+ * <p>
+ * Run: {@code java -cp <test-classpath> com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeSampleLookupBenchmark}
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttributeSampleLookupBenchmark {
+
+	@Param({ "20", "100", "500" })
+	int attributes;
+
+	@Param({ "100", "500" })
+	int conditions;
+
+	private SamplingPlan plan;
+	private AttributeList values;
+	private String[] lookups;
+
+	@Setup
+	public void setup() throws Exception {
+		ObjectName name = new ObjectName("test:type=Benchmark");
+		MBeanAttributeInfo[] aInfos = new MBeanAttributeInfo[attributes];
+		values = new AttributeList(attributes);
+		for (int i = 0; i < attributes; i++) {
+			String aName = "Attribute" + i;
+			aInfos[i] = new MBeanAttributeInfo(aName, "long", aName, true, false, false);
+			values.add(new Attribute(aName, (long) i));
+		}
+		plan = new SamplingPlan(name,
+				new MBeanInfo("Benchmark", "Benchmark MBean", aInfos, null, null, new MBeanNotificationInfo[0]));
+
+		Random rnd = new Random(42);
+		lookups = new String[conditions];
+		for (int i = 0; i < conditions; i++) {
+			lookups[i] = "Attribute" + rnd.nextInt(attributes);
+		}
+	}
+
+	private AttributeSample newSample() {
+		AttributeSample sample = AttributeSample.newAttributeSample(null, null, null, plan);
+		sample.value = values;
+		return sample;
+	}
+
+	@Benchmark
+	public void indexedLookup(Blackhole bh) {
+		AttributeSample sample = newSample();
+		for (String attrName : lookups) {
+			bh.consume(sample.getValue(attrName));
+		}
+	}
+
+	@Benchmark
+	public void linearLookup(Blackhole bh) {
+		AttributeSample sample = newSample();
+		for (String attrName : lookups) {
+			bh.consume(scan(sample.value, attrName));
+		}
+	}
+
+	private static Object scan(AttributeList vList, String attrName) {
+		for (Attribute attr : vList.asList()) {
+			if (attr.getName().equals(attrName)) {
+				return attr.getValue();
+			}
+		}
+		return null;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(AttributeSampleLookupBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jkoolcloud.tnt4j.stream.jmx.core;
+
+import static org.junit.Assert.*;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import com.jkoolcloud.tnt4j.core.Property;
+import com.jkoolcloud.tnt4j.core.PropertySnapshot;
+
+/**
+ * Checks {@link CounterRates} derives counter deltas and rates, handles counter resets and keeps integral counters
+ * deltas integral.
+ *
+ * @version 1.0
+ */
+public class CounterRatesTest {
+	private static final long SECOND_USEC = 1000000L;
+
+	private static PropertySnapshot derive(CounterRates rates, ObjectName name, long timeStamp, Object... kvs) {
+		PropertySnapshot snapshot = new PropertySnapshot("Test", name.getCanonicalName());
+		for (int i = 0; i < kvs.length; i += 2) {
+			snapshot.add(kvs[i], kvs[i + 1]);
+		}
+		rates.derive(name, snapshot, timeStamp);
+		return snapshot;
+	}
+
+	private static Object value(PropertySnapshot snapshot, String key) {
+		Property prop = snapshot.get(key);
+		return prop == null ? null : prop.getValue();
+	}
+
+	@Test
+	public void firstSampleHasNoDerivedValues() throws Exception {
+		CounterRates rates = new CounterRates("Count@java.lang:type=Test");
+		ObjectName name = new ObjectName("java.lang:type=Test");
+
+		PropertySnapshot snapshot = derive(rates, name, 0, "Count", 10L);
+		assertEquals(1, snapshot.size());
+		assertEquals(1, rates.getSeriesCount());
+	}
+
+	@Test
+	public void integralCounterDeltaAndRate() throws Exception {
+		CounterRates rates = new CounterRates("Count@java.lang:type=Test");
+		ObjectName name = new ObjectName("java.lang:type=Test");
+
+		derive(rates, name, 0, "Count", 10);
+		PropertySnapshot snapshot = derive(rates, name, 2 * SECOND_USEC, "Count", 30);
+		assertEquals(20L, value(snapshot, "Count" + CounterRates.DELTA_SUFFIX));
+		assertEquals(10.0, value(snapshot, "Count" + CounterRates.RATE_SUFFIX));
+
+		snapshot = derive(rates, name, 3 * SECOND_USEC, "Count", Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE - 30, value(snapshot, "Count" + CounterRates.DELTA_SUFFIX));
+	}
+
+	@Test
+	public void floatingCounterDelta() throws Exception {
+		CounterRates rates = new CounterRates("Time");
+		ObjectName name = new ObjectName("java.lang:type=Test");
+
+		derive(rates, name, 0, "Time", 1.5d);
+		PropertySnapshot snapshot = derive(rates, name, SECOND_USEC / 2, "Time", 4.0d);
+		assertEquals(2.5d, value(snapshot, "Time" + CounterRates.DELTA_SUFFIX));
+		assertEquals(5.0d, value(snapshot, "Time" + CounterRates.RATE_SUFFIX));
+	}
+
+	@Test
+	public void counterResetCountsFromZero() throws Exception {
+		CounterRates rates = new CounterRates("Count,Time@java.lang:type=Test");
+		ObjectName name = new ObjectName("java.lang:type=Test");
+
+		derive(rates, name, 0, "Count", 100L, "Time", 10.0d);
+		PropertySnapshot snapshot = derive(rates, name, SECOND_USEC, "Count", 7L, "Time", 2.5d);
+		assertEquals(7L, value(snapshot, "Count" + CounterRates.DELTA_SUFFIX));
+		assertEquals(7.0, value(snapshot, "Count" + CounterRates.RATE_SUFFIX));
+		assertEquals(2.5d, value(snapshot, "Time" + CounterRates.DELTA_SUFFIX));
+
+		snapshot = derive(rates, name, 2 * SECOND_USEC, "Count", 9L, "Time", 3.0d);
+		assertEquals(2L, value(snapshot, "Count" + CounterRates.DELTA_SUFFIX));
+		assertEquals(0.5d, value(snapshot, "Time" + CounterRates.DELTA_SUFFIX));
+	}
+
+	@Test
+	public void sameTimestampHasNoDerivedValues() throws Exception {
+		CounterRates rates = new CounterRates("Count");
+		ObjectName name = new ObjectName("java.lang:type=Test");
+
+		derive(rates, name, SECOND_USEC, "Count", 1L);
+		PropertySnapshot snapshot = derive(rates, name, SECOND_USEC, "Count", 2L);
+		assertNull(value(snapshot, "Count" + CounterRates.DELTA_SUFFIX));
+	}
+
+	@Test
+	public void rulesMatchPathsAndMBeans() throws Exception {
+		CounterRates rates = new CounterRates("Bytes*,Msg?@kafka.server:type=Broker,*; Count");
+		ObjectName broker = new ObjectName("kafka.server:type=Broker,name=b1");
+		ObjectName other = new ObjectName("java.lang:type=Test");
+		assertEquals(2, rates.getRulesCount());
+
+		derive(rates, broker, 0, "BytesIn", 1L, "MsgA", 1L, "MsgAB", 1L, "Count", 1L, "Other", 1L);
+		PropertySnapshot snapshot = derive(rates, broker, SECOND_USEC, "BytesIn", 2L, "MsgA", 2L, "MsgAB", 2L,
+				"Count", 2L, "Other", 2L);
+		assertNotNull(value(snapshot, "BytesIn" + CounterRates.DELTA_SUFFIX));
+		assertNotNull(value(snapshot, "MsgA" + CounterRates.DELTA_SUFFIX));
+		assertNull(value(snapshot, "MsgAB" + CounterRates.DELTA_SUFFIX));
+		assertNotNull(value(snapshot, "Count" + CounterRates.DELTA_SUFFIX));
+		assertNull(value(snapshot, "Other" + CounterRates.DELTA_SUFFIX));
+
+		derive(rates, other, 0, "BytesIn", 1L, "Count", 1L);
+		snapshot = derive(rates, other, SECOND_USEC, "BytesIn", 2L, "Count", 2L);
+		assertNull(value(snapshot, "BytesIn" + CounterRates.DELTA_SUFFIX));
+		assertNotNull(value(snapshot, "Count" + CounterRates.DELTA_SUFFIX));
+
+		rates.remove(broker);
+		snapshot = derive(rates, broker, 2 * SECOND_USEC, "BytesIn", 3L);
+		assertNull("Removed MBean shall have no counters state",
+				value(snapshot, "BytesIn" + CounterRates.DELTA_SUFFIX));
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.jkoolcloud.tnt4j.core.OpLevel;
+import com.jkoolcloud.tnt4j.core.PropertySnapshot;
+import com.jkoolcloud.tnt4j.core.Snapshot;
+
+/**
+ * Checks frames formatted by {@link BinaryFactFormatter} are decoded back by {@link BinaryFactDecoder}, and keys
+ * dictionary session is restarted as configured.
+ *
+ * @version 1.0
+ */
+public class BinaryFactFormatterTest {
+	private static final byte[] BYTES = { 0, 1, 127, -128, -1 };
+	private static final Date DATE = new Date(1700000000123L);
+
+	private static Snapshot newSnapshot() {
+		PropertySnapshot snapshot = new PropertySnapshot("Metrics", "RoundTrip");
+		snapshot.add("int", Integer.MIN_VALUE);
+		snapshot.add("long", Long.MAX_VALUE);
+		snapshot.add("negLong", -1L);
+		snapshot.add("float", 1.5f);
+		snapshot.add("double", -0.0d);
+		snapshot.add("nan", Double.NaN);
+		snapshot.add("bool", true);
+		snapshot.add("string", "héllo, world=\n");
+		snapshot.add("date", DATE);
+		snapshot.add("bytes", BYTES);
+		snapshot.add("other", OpLevel.WARNING);
+		return snapshot;
+	}
+
+	private static Object getFact(Map<String, Object> facts, String key) {
+		for (Map.Entry<String, Object> fe : facts.entrySet()) {
+			if (fe.getKey().endsWith(FactNameValueFormatter.PATH_DELIM + key)) {
+				return fe.getValue();
+			}
+		}
+		fail("Fact not found: " + key + ", facts=" + facts);
+		return null;
+	}
+
+	private static boolean isSessionStart(String frame) {
+		byte[] bytes = Base64.getDecoder().decode(frame);
+		int idx = 0;
+		while ((bytes[idx] & 0x80) != 0) {
+			idx++;
+		}
+		return (bytes[idx + 1] & BinaryFactFormatter.FLAG_RESET) != 0;
+	}
+
+	private static void assertFacts(Map<String, Object> facts) {
+		assertEquals(11, facts.size());
+		assertEquals(Integer.MIN_VALUE, getFact(facts, "int"));
+		assertEquals(Long.MAX_VALUE, getFact(facts, "long"));
+		assertEquals(-1L, getFact(facts, "negLong"));
+		assertEquals(1.5f, getFact(facts, "float"));
+		assertEquals(-0.0d, getFact(facts, "double"));
+		assertEquals(Double.NaN, getFact(facts, "nan"));
+		assertEquals(true, getFact(facts, "bool"));
+		assertEquals("héllo, world=\n", getFact(facts, "string"));
+		assertEquals(DATE, getFact(facts, "date"));
+		assertArrayEquals(BYTES, (byte[]) getFact(facts, "bytes"));
+		assertEquals(OpLevel.WARNING.toString(), getFact(facts, "other"));
+	}
+
+	@Test
+	public void roundTripAllValueTypes() throws Exception {
+		BinaryFactFormatter formatter = new BinaryFactFormatter();
+		BinaryFactDecoder decoder = new BinaryFactDecoder();
+
+		String first = formatter.format(newSnapshot());
+		String second = formatter.format(newSnapshot());
+		assertTrue(isSessionStart(first));
+		assertFalse(isSessionStart(second));
+		assertTrue("Keys shall be sent once per session", second.length() < first.length());
+
+		BinaryFactDecoder.Frame frame = decoder.decode(first);
+		assertEquals(BinaryFactFormatter.TYPE_SNAPSHOT, frame.getType());
+		assertTrue(frame.getPath().endsWith(FactNameValueFormatter.PATH_DELIM + "Metrics"));
+		assertFacts(frame.getFacts());
+
+		BinaryFactDecoder.Frame refFrame = decoder.decode(second);
+		assertEquals(frame.getPath(), refFrame.getPath());
+		assertEquals(frame.getFacts().keySet(), refFrame.getFacts().keySet());
+		assertFacts(refFrame.getFacts());
+
+		String msg = formatter.format(0, null, OpLevel.INFO, "Sampled {0}", new Object[] { 11 });
+		BinaryFactDecoder.Frame msgFrame = decoder.decode(msg);
+		assertEquals(BinaryFactFormatter.TYPE_MESSAGE, msgFrame.getType());
+		assertEquals(OpLevel.INFO.toString(), getFact(msgFrame.getFacts(), "level"));
+		assertEquals("Sampled 11", getFact(msgFrame.getFacts(), "msg-text"));
+	}
+
+	@Test
+	public void roundTripFrameStream() throws Exception {
+		BinaryFactFormatter formatter = new BinaryFactFormatter();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int i = 0; i < 3; i++) {
+			out.write(Base64.getDecoder().decode(formatter.format(newSnapshot())));
+		}
+
+		BinaryFactDecoder decoder = new BinaryFactDecoder();
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		for (int i = 0; i < 3; i++) {
+			assertFacts(decoder.read(in).getFacts());
+		}
+		assertNull(decoder.read(in));
+	}
+
+	@Test
+	public void dictionaryReset() throws Exception {
+		BinaryFactFormatter formatter = new BinaryFactFormatter();
+		BinaryFactDecoder decoder = new BinaryFactDecoder();
+		decoder.decode(formatter.format(newSnapshot()));
+		String inSession = formatter.format(newSnapshot());
+
+		formatter.resetSession();
+		String reset = formatter.format(newSnapshot());
+		assertTrue(isSessionStart(reset));
+		assertFacts(decoder.decode(reset).getFacts());
+
+		BinaryFactDecoder lateDecoder = new BinaryFactDecoder();
+		try {
+			lateDecoder.decode(inSession);
+			fail("Frame of missed session shall not be decoded");
+		} catch (IOException exc) {
+			// expected
+		}
+		assertFacts(lateDecoder.decode(reset).getFacts());
+	}
+
+	@Test
+	public void periodicSessionReset() throws Exception {
+		BinaryFactFormatter formatter = new BinaryFactFormatter();
+		formatter.maxSessionFrames = 3;
+		BinaryFactDecoder decoder = new BinaryFactDecoder();
+		for (int i = 0; i < 7; i++) {
+			String frame = formatter.format(newSnapshot());
+			assertEquals("frame=" + i, i % 3 == 0, isSessionStart(frame));
+			assertFacts(decoder.decode(frame).getFacts());
+		}
+	}
+
+	@Test
+	public void dictionarySizeReset() throws Exception {
+		BinaryFactFormatter formatter = new BinaryFactFormatter();
+		formatter.maxDictionarySize = 5;
+		BinaryFactDecoder decoder = new BinaryFactDecoder();
+		for (int i = 0; i < 3; i++) {
+			String frame = formatter.format(newSnapshot());
+			assertTrue("frame=" + i, isSessionStart(frame));
+			assertFacts(decoder.decode(frame).getFacts());
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import static org.junit.Assert.*;
+
+import java.util.Date;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import com.jkoolcloud.tnt4j.core.OpLevel;
+import com.jkoolcloud.tnt4j.core.PropertySnapshot;
+import com.jkoolcloud.tnt4j.core.Snapshot;
+import com.jkoolcloud.tnt4j.source.DefaultSource;
+import com.jkoolcloud.tnt4j.source.Source;
+import com.jkoolcloud.tnt4j.source.SourceType;
+
+/**
+ * Checks {@link FactNameValueFormatter} and {@link FactPathValueFormatter} produce same output with thread bound
+ * buffers reuse ({@code ReuseBuffers}) enabled and disabled.
+ *
+ * @version 1.0
+ */
+public class FactNameValueFormatterTest {
+	private static final Date DATE = new Date(1700000000123L);
+	private static final Source SOURCE = new DefaultSource(null, "Stream JMX=1", SourceType.APPL,
+			new DefaultSource(null, "local/host", SourceType.SERVER, null, null), null);
+
+	private static Snapshot newSnapshot(int seq) {
+		PropertySnapshot snapshot = new PropertySnapshot("java.lang:type=Memory", "Heap Usage");
+		snapshot.setSource(SOURCE);
+		snapshot.add("int", seq);
+		snapshot.add("long", Long.MIN_VALUE + seq);
+		snapshot.add("float", 1.5f * seq);
+		snapshot.add("double", -0.1d * seq);
+		snapshot.add("nan", Double.NaN);
+		snapshot.add("infinity", Double.NEGATIVE_INFINITY);
+		snapshot.add("bool", seq % 2 == 0);
+		snapshot.add("date", DATE);
+		snapshot.add("bytes", new byte[] { 0, 1, 127, -128, (byte) seq });
+		snapshot.add("empty", "");
+		snapshot.add("level", OpLevel.WARNING);
+		snapshot.add("key with space/slash=eq,comma\\\"quote\"", "v" + seq);
+		snapshot.add("special", "a;b,c[d]\"e\r\nf=g\\h " + seq);
+		snapshot.add("unicode", "héllo 世界");
+		return snapshot;
+	}
+
+	private static <F extends FactNameValueFormatter> F configure(F formatter, boolean reuseBuffers,
+			boolean addAPValueTypePrefix) {
+		formatter.initDefaultKeyReplacements();
+		formatter.initDefaultValueReplacements();
+		formatter.compileReplacements();
+		formatter.reuseBuffers = reuseBuffers;
+		formatter.addAPValueTypePrefix = addAPValueTypePrefix;
+		return formatter;
+	}
+
+	private static void assertSameOutput(Supplier<FactNameValueFormatter> factory, boolean addAPValueTypePrefix) {
+		FactNameValueFormatter plain = configure(factory.get(), false, addAPValueTypePrefix);
+		FactNameValueFormatter reusing = configure(factory.get(), true, addAPValueTypePrefix);
+
+		for (int i = 0; i < 3; i++) {
+			String expected = plain.format(newSnapshot(i));
+			assertEquals("snapshot=" + i + ", typePrefix=" + addAPValueTypePrefix, expected,
+					reusing.format(newSnapshot(i)));
+		}
+		assertEquals(plain.format(0, SOURCE, OpLevel.INFO, "Sampled {0}; \"{1}\"\n", new Object[] { 11, "a=b" }),
+				reusing.format(0, SOURCE, OpLevel.INFO, "Sampled {0}; \"{1}\"\n", new Object[] { 11, "a=b" }));
+	}
+
+	@Test
+	public void nameValueReuseBuffersOutput() {
+		assertSameOutput(FactNameValueFormatter::new, false);
+		assertSameOutput(FactNameValueFormatter::new, true);
+	}
+
+	@Test
+	public void pathValueReuseBuffersOutput() {
+		assertSameOutput(FactPathValueFormatter::new, false);
+		assertSameOutput(FactPathValueFormatter::new, true);
+	}
+
+	@Test
+	public void typePrefixApplied() {
+		String plain = configure(new FactNameValueFormatter(), true, false).format(newSnapshot(1));
+		String prefixed = configure(new FactNameValueFormatter(), true, true).format(newSnapshot(1));
+		assertNotEquals(plain, prefixed);
+		assertTrue(prefixed, prefixed.contains("$I$"));
+		assertFalse(prefixed.contains("\r"));
+		assertEquals("Line feed shall end formatted snapshot only", prefixed.length() - 1, prefixed.indexOf('\n'));
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.jkoolcloud.tnt4j.core.Property;
+
+/**
+ * Checks {@link FactPathValueFormatter#getSortedUniquePropertyKey(String, Property[], int)} produces same unique keys
+ * as {@link FactPathValueFormatter#getUniquePropertyKey(String, Property[], int)} for properties ordered by key.
+ *
+ * @version 1.0
+ */
+public class FactPathValueFormatterTest {
+	private static final String[] SEGMENTS = { "a", "b", "a_", "a__", "ab", "b_" };
+	private static final int KEY_SETS = 5000;
+
+	private static String randomKey(Random rnd) {
+		StringBuilder key = new StringBuilder(SEGMENTS[rnd.nextInt(SEGMENTS.length)]);
+		int depth = rnd.nextInt(4);
+		for (int i = 0; i < depth; i++) {
+			key.append(FactNameValueFormatter.PATH_DELIM).append(SEGMENTS[rnd.nextInt(SEGMENTS.length)]);
+		}
+		return key.toString();
+	}
+
+	private static Property[] sortedProperties(Set<String> keys) {
+		Property[] pArray = new Property[keys.size()];
+		int i = 0;
+		for (String key : keys) {
+			pArray[i++] = new Property(key, i);
+		}
+		return pArray;
+	}
+
+	private static void assertSameUniqueKeys(FactPathValueFormatter formatter, Property[] pArray) {
+		for (int i = 0; i < pArray.length; i++) {
+			String pKey = pArray[i].getKey();
+			assertEquals("key=" + pKey, formatter.getUniquePropertyKey(pKey, pArray, i),
+					formatter.getSortedUniquePropertyKey(pKey, pArray, i));
+		}
+	}
+
+	@Test
+	public void randomizedSortedKeysMatchLinearLookup() {
+		FactPathValueFormatter formatter = new FactPathValueFormatter();
+		Random rnd = new Random(42);
+		for (int t = 0; t < KEY_SETS; t++) {
+			Set<String> keys = new TreeSet<>();
+			int count = 1 + rnd.nextInt(24);
+			for (int i = 0; i < count; i++) {
+				keys.add(randomKey(rnd));
+			}
+			assertSameUniqueKeys(formatter, sortedProperties(keys));
+		}
+	}
+
+	@Test
+	public void nestedDuplicateKeys() {
+		FactPathValueFormatter formatter = new FactPathValueFormatter();
+		Set<String> keys = new TreeSet<>();
+		keys.add("a");
+		keys.add("a" + FactNameValueFormatter.PATH_DELIM + "b");
+		keys.add("a_" + FactNameValueFormatter.PATH_DELIM + "c");
+		keys.add("a__");
+		Property[] pArray = sortedProperties(keys);
+
+		assertEquals("a__", formatter.getSortedUniquePropertyKey("a", pArray, 0));
+		assertSameUniqueKeys(formatter, pArray);
+	}
+}
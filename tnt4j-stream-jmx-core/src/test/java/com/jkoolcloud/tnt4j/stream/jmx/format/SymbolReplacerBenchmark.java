@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.jkoolcloud.tnt4j.utils.Utils;
+
+/**
+ * Compares {@link SymbolReplacer} single scan replacement against former {@link Utils#replace(String, Map)} making one
+ * string scan and copy per rule, using formatter default key and value replacement rules. Setup checks both produce
+ * same results for all benchmark strings. Each invocation replaces symbols of all benchmark strings. In place variants
+ * replace symbols of string builder tail, as formatters do when fact string buffers are reused.
+ * <p>
+ * Run: {@code java -cp <test-classpath> com.jkoolcloud.tnt4j.stream.jmx.format.SymbolReplacerBenchmark}
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymbolReplacerBenchmark {
+	private static final String[] KEYS = { "java.lang:type=GarbageCollector,name=PS Scavenge\\CollectionCount",
+			"java.lang:type=MemoryPool,name=Compressed Class Space\\Usage\\used",
+			"kafka.server:type=BrokerTopicMetrics,name=\"BytesInPerSec\",topic=orders\\OneMinuteRate",
+			"Catalina:type=GlobalRequestProcessor,name=\"http-nio-8080\"\\requestCount",
+			"java.lang:type=Runtime\\Uptime" };
+	private static final String[] VALUES = { "12345", "[-XX:+UseG1GC, -Xmx2g, -Dfile.encoding=UTF-8]",
+			"\"PS Eden Space\";\"PS Survivor Space\"", "RUNNABLE", "1.8.0_392" };
+
+	private static final String PREFIX = "<snapshot-fact>=";
+
+	@Param({ "key", "value" })
+	String rules;
+
+	private Map<String, String> replacements;
+	private SymbolReplacer replacer;
+	private String[] strings;
+	private final StringBuilder buffer = new StringBuilder(256);
+
+	@Setup
+	public void setup() {
+		replacements = new LinkedHashMap<>();
+		if ("key".equals(rules)) {
+			replacements.put(" ", "_");
+			replacements.put("\"", "'");
+			replacements.put("/", "%");
+			replacements.put(FactNameValueFormatter.EQ, FactNameValueFormatter.PATH_DELIM);
+			replacements.put(FactNameValueFormatter.FIELD_SEP, FactNameValueFormatter.FS_REP);
+			strings = KEYS;
+		} else {
+			replacements.put(";", "|");
+			replacements.put(",", "|");
+			replacements.put("[", "{(");
+			replacements.put("]", ")}");
+			replacements.put("\"", "'");
+			strings = VALUES;
+		}
+		replacer = SymbolReplacer.compile(replacements);
+
+		for (String str : strings) {
+			String expected = Utils.replace(str, replacements);
+			check(str, expected, replacer.replace(str));
+			check(str, PREFIX + expected,
+					replacer.replace(new StringBuilder(PREFIX).append(str), PREFIX.length()).toString());
+			check(str, PREFIX + expected,
+					replace(new StringBuilder(PREFIX).append(str), PREFIX.length(), replacements).toString());
+		}
+	}
+
+	private static void check(String str, String expected, String actual) {
+		if (!expected.equals(actual)) {
+			throw new IllegalStateException(
+					"Replacement mismatch: string=" + str + ", expected=" + expected + ", actual=" + actual);
+		}
+	}
+
+	@Benchmark
+	public void sequentialReplace(Blackhole bh) {
+		for (String str : strings) {
+			bh.consume(Utils.replace(str, replacements));
+		}
+	}
+
+	@Benchmark
+	public void compiledReplace(Blackhole bh) {
+		for (String str : strings) {
+			bh.consume(replacer.replace(str));
+		}
+	}
+
+	@Benchmark
+	public void sequentialInPlaceReplace(Blackhole bh) {
+		for (String str : strings) {
+			buffer.setLength(0);
+			bh.consume(replace(buffer.append(PREFIX).append(str), PREFIX.length(), replacements));
+		}
+	}
+
+	@Benchmark
+	public void compiledInPlaceReplace(Blackhole bh) {
+		for (String str : strings) {
+			buffer.setLength(0);
+			bh.consume(replacer.replace(buffer.append(PREFIX).append(str), PREFIX.length()));
+		}
+	}
+
+	/**
+	 * Former formatters string builder tail replacement, applying rules one after another in map order.
+	 */
+	private static StringBuilder replace(StringBuilder nvString, int start, Map<String, String> replacements) {
+		for (Map.Entry<String, String> re : replacements.entrySet()) {
+			String from = re.getKey();
+			String to = re.getValue();
+			int idx = nvString.indexOf(from, start);
+			while (idx >= 0) {
+				nvString.replace(idx, idx + from.length(), to);
+				idx = nvString.indexOf(from, idx + to.length());
+			}
+		}
+		return nvString;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(SymbolReplacerBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jkoolcloud.tnt4j.stream.jmx.format;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.jkoolcloud.tnt4j.utils.Utils;
+
+/**
+ * Checks {@link SymbolReplacer} produces same results as {@link Utils#replace(String, Map)} applying replacement rules
+ * one after another in mapping order.
+ *
+ * @version 1.0
+ */
+public class SymbolReplacerTest {
+	private static final String SYMBOLS = "ab=\\,/ \"#;[]{}()|'!_%\r\nx\u00e4";
+	private static final int RULE_SETS = 5000;
+	private static final int STRINGS_PER_RULE_SET = 20;
+
+	@Test
+	public void randomizedRuleSetsMatchSequentialReplace() {
+		Random rnd = new Random(42);
+		for (int t = 0; t < RULE_SETS; t++) {
+			Map<String, String> rules = new LinkedHashMap<>();
+			int rulesCount = rnd.nextInt(8);
+			for (int i = 0; i < rulesCount; i++) {
+				rules.put(randomString(rnd, 1 + rnd.nextInt(2)), randomString(rnd, rnd.nextInt(3)));
+			}
+			SymbolReplacer replacer = SymbolReplacer.compile(rules);
+
+			for (int i = 0; i < STRINGS_PER_RULE_SET; i++) {
+				String str = randomString(rnd, rnd.nextInt(16));
+				assertReplaced(rules, replacer, str);
+			}
+		}
+	}
+
+	@Test
+	public void defaultRulesMatchSequentialReplace() {
+		Map<String, String> keyRules = new LinkedHashMap<>();
+		keyRules.put(" ", "_");
+		keyRules.put("\"", "'");
+		keyRules.put("/", "%");
+		keyRules.put(FactNameValueFormatter.EQ, FactNameValueFormatter.PATH_DELIM);
+		keyRules.put(FactNameValueFormatter.FIELD_SEP, FactNameValueFormatter.FS_REP);
+		keyRules.put("\\\\", "\\");
+
+		Map<String, String> valueRules = new LinkedHashMap<>();
+		valueRules.put(";", "|");
+		valueRules.put(",", "|");
+		valueRules.put("[", "{(");
+		valueRules.put("]", ")}");
+		valueRules.put("\"", "'");
+
+		String[] strings = { "java.lang:type=GarbageCollector,name=PS Scavenge",
+				"kafka.server:type=BrokerTopicMetrics,name=\"Bytes In/sec\",topic=a\\=b",
+				"[1, 2; 3] \"quoted\"", "no symbols" };
+		SymbolReplacer keyReplacer = SymbolReplacer.compile(keyRules);
+		SymbolReplacer valueReplacer = SymbolReplacer.compile(valueRules);
+		for (String str : strings) {
+			assertReplaced(keyRules, keyReplacer, str);
+			assertReplaced(valueRules, valueReplacer, str);
+		}
+	}
+
+	@Test
+	public void replacementOutputMatchedByLaterRule() {
+		Map<String, String> rules = new LinkedHashMap<>();
+		rules.put("=", "\\");
+		rules.put("\\\\", "\\");
+		rules.put("a", "bb");
+		rules.put("b", "c");
+
+		assertReplaced(rules, SymbolReplacer.compile(rules), "a==b\\\\=a");
+	}
+
+	@Test
+	public void unchangedStringIsNotCopied() {
+		Map<String, String> rules = new LinkedHashMap<>();
+		rules.put(",", "!");
+		String str = "nothing to replace";
+
+		assertSame(str, SymbolReplacer.compile(rules).replace(str));
+		assertSame(str, SymbolReplacer.NONE.replace(str));
+		assertTrue(SymbolReplacer.compile(new LinkedHashMap<>()).isEmpty());
+	}
+
+	private static void assertReplaced(Map<String, String> rules, SymbolReplacer replacer, String str) {
+		String expected = Utils.replace(str, rules);
+		assertEquals("rules=" + rules + ", string=" + str, expected, replacer.replace(str));
+
+		StringBuilder sb = new StringBuilder("pre=fix,").append(str);
+		replacer.replace(sb, 8);
+		assertEquals("rules=" + rules + ", string=" + str, "pre=fix," + expected, sb.toString());
+	}
+
+	private static String randomString(Random rnd, int length) {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(SYMBOLS.charAt(rnd.nextInt(SYMBOLS.length())));
+		}
+		return sb.toString();
+	}
+}
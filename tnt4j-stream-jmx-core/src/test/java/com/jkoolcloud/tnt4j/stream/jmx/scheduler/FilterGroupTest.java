@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link FilterGroup} definitions parsing, group periods rounding and scheduler tick period calculation.
+ *
+ * @version 1.0
+ */
+public class FilterGroupTest {
+
+	@Test
+	public void parseGroups() {
+		List<FilterGroup> groups = FilterGroup.parse(
+				" java.lang:type=Memory,*@1000 | kafka.log:*;kafka.server:*#kafka.log:type=Log,*@300000||*:*", 30000);
+		assertEquals(3, groups.size());
+
+		assertEquals("java.lang:type=Memory,*", groups.get(0).getIncludeFilter());
+		assertNull(groups.get(0).getExcludeFilter());
+		assertEquals(1000, groups.get(0).getPeriod());
+
+		assertEquals("kafka.log:*;kafka.server:*", groups.get(1).getIncludeFilter());
+		assertEquals("kafka.log:type=Log,*", groups.get(1).getExcludeFilter());
+		assertEquals(300000, groups.get(1).getPeriod());
+
+		assertEquals("*:*", groups.get(2).getIncludeFilter());
+		assertEquals("Group having no period shall use sampling period", 30000, groups.get(2).getPeriod());
+	}
+
+	@Test
+	public void parseEmpty() {
+		assertTrue(FilterGroup.parse(null, 30000).isEmpty());
+		assertTrue(FilterGroup.parse("  ", 30000).isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseInvalidPeriod() {
+		FilterGroup.parse("java.lang:*@fast", 30000);
+	}
+
+	@Test
+	public void tickPeriodIsGcd() {
+		List<FilterGroup> groups = FilterGroup.parse("a:*@15000|b:*@10000|c:*@60000", 30000);
+		assertEquals(5000, FilterGroup.getTickPeriod(groups, 30000));
+		assertEquals(30000, FilterGroup.getTickPeriod(Collections.<FilterGroup> emptyList(), 30000));
+		assertEquals(6, FilterGroup.gcd(12, 18));
+		assertEquals(7, FilterGroup.gcd(0, 7));
+	}
+
+	@Test
+	public void periodsRoundedToMinTick() {
+		List<FilterGroup> groups = FilterGroup.parse("a:*@1001|b:*@1499|c:*@1500|d:*@10|e:*@0", 30000);
+		assertEquals(1000, groups.get(0).getPeriod());
+		assertEquals(1000, groups.get(1).getPeriod());
+		assertEquals(2000, groups.get(2).getPeriod());
+		assertEquals("Period shall not be rounded to 0", 1000, groups.get(3).getPeriod());
+		assertEquals(30000, groups.get(4).getPeriod());
+
+		groups = FilterGroup.parse("a:*@1009|b:*@1013", 30000);
+		assertEquals("Coprime periods shall not make 1ms tick", FilterGroup.MIN_TICK_PERIOD,
+				FilterGroup.getTickPeriod(groups, 30000));
+	}
+
+	@Test
+	public void minTickPeriod() {
+		assertEquals(FilterGroup.MIN_TICK_PERIOD, FilterGroup.getMinTickPeriod(30000, 0));
+		assertEquals("Short sampling period shall be kept", 200, FilterGroup.getMinTickPeriod(200, 0));
+		assertEquals("Rollup inner period shall be tick", 2500, FilterGroup.getMinTickPeriod(30000, 2500));
+
+		List<FilterGroup> groups = FilterGroup.parse("a:*@1000|b:*@4000", 30000, 2500);
+		assertEquals(2500, groups.get(0).getPeriod());
+		assertEquals(5000, groups.get(1).getPeriod());
+		assertEquals(2500, FilterGroup.getTickPeriod(groups, 30000));
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.jkoolcloud.tnt4j.core.Activity;
+import com.jkoolcloud.tnt4j.core.OpLevel;
+import com.jkoolcloud.tnt4j.core.Snapshot;
+import com.jkoolcloud.tnt4j.stream.jmx.conditions.AttributeSample;
+import com.jkoolcloud.tnt4j.stream.jmx.core.SampleContext;
+import com.jkoolcloud.tnt4j.stream.jmx.core.SampleListener;
+
+/**
+ * Compares sample listeners dispatch synchronized on listeners list, as {@link SampleHandlerImpl} did before, against
+ * dispatch over immutable listeners array read from volatile field, as {@link SampleHandlerImpl} does now. Each
+ * invocation simulates three per MBean listener callbacks of one sampling cycle. Multi-threaded variants simulate
+ * parallel MBean sampling (see {@link com.jkoolcloud.tnt4j.stream.jmx.conditions.SampleHandler#CFG_SAMPLING_THREADS}).
+ * <p>
+ * Run: {@code java -cp <test-classpath> com.jkoolcloud.tnt4j.stream.jmx.scheduler.ListenerDispatchBenchmark}
+ *
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerDispatchBenchmark {
+	private static final SampleListener[] NO_LISTENERS = new SampleListener[0];
+
+	@Param({ "1", "4" })
+	int listenersCount;
+
+	private final List<SampleListener> lockedListeners = new ArrayList<>();
+	private volatile SampleListener[] listeners = NO_LISTENERS;
+
+	@Setup
+	public void setup() {
+		List<SampleListener> lList = new ArrayList<>(listenersCount);
+		for (int i = 0; i < listenersCount; i++) {
+			lList.add(new NoopListener());
+		}
+		lockedListeners.addAll(lList);
+		listeners = lList.toArray(NO_LISTENERS);
+	}
+
+	private void dispatchLocked() {
+		synchronized (lockedListeners) {
+			for (SampleListener lst : lockedListeners) {
+				lst.pre(null, (AttributeSample) null);
+			}
+		}
+		synchronized (lockedListeners) {
+			for (SampleListener lst : lockedListeners) {
+				lst.error(null, null, OpLevel.NONE);
+			}
+		}
+		synchronized (lockedListeners) {
+			for (SampleListener lst : lockedListeners) {
+				lst.complete(null, null, null, null, null);
+			}
+		}
+	}
+
+	private void dispatchVolatile() {
+		for (SampleListener lst : listeners) {
+			lst.pre(null, (AttributeSample) null);
+		}
+		for (SampleListener lst : listeners) {
+			lst.error(null, null, OpLevel.NONE);
+		}
+		for (SampleListener lst : listeners) {
+			lst.complete(null, null, null, null, null);
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void lockedSingleThread() {
+		dispatchLocked();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void volatileSingleThread() {
+		dispatchVolatile();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void lockedFourThreads() {
+		dispatchLocked();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void volatileFourThreads() {
+		dispatchVolatile();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ListenerDispatchBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	/**
+	 * Listener doing no work, so benchmark measures dispatch cost.
+	 */
+	private static class NoopListener implements SampleListener {
+		@Override
+		public void register(SampleContext context, ObjectName oName) {
+		}
+
+		@Override
+		public void unregister(SampleContext context, ObjectName oName) {
+		}
+
+		@Override
+		public void pre(SampleContext context, AttributeSample sample) {
+		}
+
+		@Override
+		public void post(SampleContext context, AttributeSample sample) {
+		}
+
+		@Override
+		public void complete(SampleContext context, Activity activity, ObjectName name, MBeanInfo info,
+				Snapshot snapshot) {
+		}
+
+		@Override
+		public void error(SampleContext context, AttributeSample sample, OpLevel level) {
+		}
+
+		@Override
+		public void error(SampleContext context, Throwable ex) {
+		}
+
+		@Override
+		public void pre(SampleContext context, Activity activity) {
+		}
+
+		@Override
+		public void post(SampleContext context, Activity activity) {
+		}
+
+		@Override
+		public void getStats(SampleContext context, Map<String, Object> stats) {
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import com.jkoolcloud.tnt4j.core.Property;
+import com.jkoolcloud.tnt4j.core.PropertySnapshot;
+
+/**
+ * Checks {@link RollupBuffers} inner period calculation, integral and floating point metrics rollup and MBeans rollup
+ * order.
+ *
+ * @version 1.0
+ */
+public class RollupBuffersTest {
+
+	private static PropertySnapshot newSnapshot(ObjectName name, Object value) {
+		PropertySnapshot snapshot = new PropertySnapshot("Test", name.getCanonicalName());
+		snapshot.add("State", "RUNNING");
+		snapshot.add("Value", value);
+		return snapshot;
+	}
+
+	private static Object value(PropertySnapshot snapshot, String key) {
+		Property prop = snapshot.get(key);
+		return prop == null ? null : prop.getValue();
+	}
+
+	@Test
+	public void innerPeriod() {
+		assertEquals(6000, RollupBuffers.getInnerPeriod(7000, 30000));
+		assertEquals(3750, RollupBuffers.getInnerPeriod(4000, 30000));
+		assertEquals(5000, RollupBuffers.getInnerPeriod(5000, 30000));
+		assertEquals("Disabled rollup", 0, RollupBuffers.getInnerPeriod(0, 30000));
+		assertEquals("Rollup period not shorter than sampling period", 0, RollupBuffers.getInnerPeriod(30000, 30000));
+		assertEquals("Rollup period not shorter than sampling period", 0, RollupBuffers.getInnerPeriod(60000, 30000));
+	}
+
+	@Test
+	public void integralRollup() throws Exception {
+		RollupBuffers buffers = new RollupBuffers(3);
+		ObjectName name = new ObjectName("java.lang:type=Test");
+		buffers.add(name, newSnapshot(name, 5L));
+		buffers.add(name, newSnapshot(name, Long.MAX_VALUE));
+		buffers.add(name, newSnapshot(name, 2));
+
+		PropertySnapshot rolled = buffers.rollup(name);
+		assertEquals("RUNNING", value(rolled, "State"));
+		assertEquals("Last value shall be kept", 2, value(rolled, "Value"));
+		assertEquals(2L, value(rolled, "Value" + RollupBuffers.MIN_SUFFIX));
+		assertEquals(Long.MAX_VALUE, value(rolled, "Value" + RollupBuffers.MAX_SUFFIX));
+		assertTrue(value(rolled, "Value" + RollupBuffers.AVG_SUFFIX) instanceof Double);
+		assertEquals(3, value(rolled, "Value" + RollupBuffers.COUNT_SUFFIX));
+		assertNull(value(rolled, "State" + RollupBuffers.MIN_SUFFIX));
+
+		assertNull("Rolled up MBean shall have no buffered snapshot", buffers.rollup(name));
+	}
+
+	@Test
+	public void floatingPointRollup() throws Exception {
+		RollupBuffers buffers = new RollupBuffers(4);
+		ObjectName name = new ObjectName("java.lang:type=Test");
+		buffers.add(name, newSnapshot(name, 4L));
+		buffers.add(name, newSnapshot(name, 0.5d));
+		buffers.add(name, newSnapshot(name, 6));
+
+		PropertySnapshot rolled = buffers.rollup(name);
+		assertEquals(0.5d, value(rolled, "Value" + RollupBuffers.MIN_SUFFIX));
+		assertEquals(6.0d, value(rolled, "Value" + RollupBuffers.MAX_SUFFIX));
+		assertEquals(3.5d, value(rolled, "Value" + RollupBuffers.AVG_SUFFIX));
+		assertEquals(3, value(rolled, "Value" + RollupBuffers.COUNT_SUFFIX));
+
+		buffers.add(name, newSnapshot(name, 7L));
+		rolled = buffers.rollup(name);
+		assertEquals("Next outer period shall start integral", 7L, value(rolled, "Value" + RollupBuffers.MIN_SUFFIX));
+		assertEquals(1, value(rolled, "Value" + RollupBuffers.COUNT_SUFFIX));
+	}
+
+	@Test
+	public void fullRingOverwritesOldest() throws Exception {
+		RollupBuffers buffers = new RollupBuffers(2);
+		ObjectName name = new ObjectName("java.lang:type=Test");
+		buffers.add(name, newSnapshot(name, 1L));
+		buffers.add(name, newSnapshot(name, 10L));
+		buffers.add(name, newSnapshot(name, 20L));
+
+		PropertySnapshot rolled = buffers.rollup(name);
+		assertEquals(10L, value(rolled, "Value" + RollupBuffers.MIN_SUFFIX));
+		assertEquals(20L, value(rolled, "Value" + RollupBuffers.MAX_SUFFIX));
+		assertEquals(2, value(rolled, "Value" + RollupBuffers.COUNT_SUFFIX));
+	}
+
+	@Test
+	public void rollupAllKeepsInsertionOrder() throws Exception {
+		RollupBuffers buffers = new RollupBuffers(2);
+		List<ObjectName> names = new ArrayList<>();
+		for (String type : new String[] { "Z", "b", "M", "a", "Y", "c" }) {
+			names.add(new ObjectName("java.lang:type=" + type));
+		}
+
+		for (int cycle = 0; cycle < 3; cycle++) {
+			for (ObjectName name : names) {
+				buffers.add(name, newSnapshot(name, cycle));
+			}
+			Map<ObjectName, PropertySnapshot> rolled = buffers.rollupAll();
+			assertEquals(names, new ArrayList<>(rolled.keySet()));
+		}
+		assertEquals(names.size(), buffers.getSeriesCount());
+
+		buffers.add(names.get(3), newSnapshot(names.get(3), 1));
+		buffers.add(names.get(1), newSnapshot(names.get(1), 1));
+		assertEquals("Only MBeans sampled since last rollup shall be rolled up",
+				Arrays.asList(names.get(1), names.get(3)), new ArrayList<>(buffers.rollupAll().keySet()));
+
+		buffers.remove(names.get(0));
+		assertEquals(names.size() - 1, buffers.getSeriesCount());
+		buffers.clear();
+		assertEquals(0, buffers.getSeriesCount());
+	}
+}
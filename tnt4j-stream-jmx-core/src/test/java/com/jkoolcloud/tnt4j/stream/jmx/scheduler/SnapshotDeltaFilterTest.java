@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015-2023 JKOOL, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jkoolcloud.tnt4j.stream.jmx.scheduler;
+
+import static org.junit.Assert.*;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import com.jkoolcloud.tnt4j.core.PropertySnapshot;
+import com.jkoolcloud.tnt4j.stream.jmx.utils.Utils;
+
+/**
+ * Checks {@link SnapshotDeltaFilter} keyframes schedule, change-only snapshots and keyframes forced by MBean errors and
+ * reconnects.
+ *
+ * @version 1.0
+ */
+public class SnapshotDeltaFilterTest {
+	private static PropertySnapshot newSnapshot(ObjectName name, Object count, Object value) {
+		PropertySnapshot snapshot = new PropertySnapshot("Test", name.getCanonicalName());
+		snapshot.add(Utils.OBJ_NAME_PROP, name.getCanonicalName());
+		snapshot.add("type", name.getKeyProperty("type"));
+		snapshot.add("Count", count);
+		snapshot.add("Value", value);
+		return snapshot;
+	}
+
+	private static String getFrame(PropertySnapshot snapshot) {
+		return (String) snapshot.get(SnapshotDeltaFilter.FRAME_PROP).getValue();
+	}
+
+	@Test
+	public void keyframeCycles() {
+		SnapshotDeltaFilter filter = new SnapshotDeltaFilter(3);
+		boolean[] expected = { true, false, false, true, false, false, true };
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals("cycle=" + (i + 1), expected[i], filter.isKeyframeCycle(i + 1));
+		}
+
+		SnapshotDeltaFilter everyCycle = new SnapshotDeltaFilter(1);
+		for (int cycle = 1; cycle <= 3; cycle++) {
+			assertTrue(everyCycle.isKeyframeCycle(cycle));
+		}
+	}
+
+	@Test
+	public void deltaSnapshots() throws Exception {
+		SnapshotDeltaFilter filter = new SnapshotDeltaFilter(3);
+		ObjectName name = new ObjectName("java.lang:type=Test");
+
+		PropertySnapshot first = filter.filter(name, newSnapshot(name, 1L, 0.5d), false);
+		assertEquals("New MBean shall emit keyframe", SnapshotDeltaFilter.FRAME_KEY, getFrame(first));
+		assertEquals(5, first.size());
+
+		assertNull("Unchanged snapshot shall be dropped", filter.filter(name, newSnapshot(name, 1L, 0.5d), false));
+
+		PropertySnapshot delta = filter.filter(name, newSnapshot(name, 2L, 0.5d), false);
+		assertEquals(SnapshotDeltaFilter.FRAME_DELTA, getFrame(delta));
+		assertEquals(2L, delta.get("Count").getValue());
+		assertNull(delta.get("Value"));
+		assertNotNull("Identity properties shall be retained", delta.get(Utils.OBJ_NAME_PROP));
+		assertNotNull("Identity properties shall be retained", delta.get("type"));
+
+		delta = filter.filter(name, newSnapshot(name, 2, Double.NaN), false);
+		assertNull("Same integral value shall not change", delta.get("Count"));
+		assertNotNull(delta.get("Value"));
+		assertNull("NaN shall equal to NaN", filter.filter(name, newSnapshot(name, 2, Double.NaN), false));
+
+		PropertySnapshot key = filter.filter(name, newSnapshot(name, 2, Double.NaN), true);
+		assertEquals(SnapshotDeltaFilter.FRAME_KEY, getFrame(key));
+		assertEquals(5, key.size());
+	}
+
+	@Test
+	public void errorAndReconnectForceKeyframe() throws Exception {
+		SnapshotDeltaFilter filter = new SnapshotDeltaFilter(100);
+		ObjectName name1 = new ObjectName("java.lang:type=Test1");
+		ObjectName name2 = new ObjectName("java.lang:type=Test2");
+
+		filter.filter(name1, newSnapshot(name1, 1L, "a"), true);
+		filter.filter(name2, newSnapshot(name2, 1L, "a"), true);
+		assertNull(filter.filter(name1, newSnapshot(name1, 1L, "a"), false));
+
+		filter.reset(name1); // MBean sampling error
+		assertEquals(SnapshotDeltaFilter.FRAME_KEY, getFrame(filter.filter(name1, newSnapshot(name1, 1L, "a"), false)));
+		assertNull(filter.filter(name2, newSnapshot(name2, 1L, "a"), false));
+
+		filter.clear(); // JMX connection reconnect
+		assertEquals(SnapshotDeltaFilter.FRAME_KEY, getFrame(filter.filter(name1, newSnapshot(name1, 1L, "a"), false)));
+		assertEquals(SnapshotDeltaFilter.FRAME_KEY, getFrame(filter.filter(name2, newSnapshot(name2, 1L, "a"), false)));
+	}
+}